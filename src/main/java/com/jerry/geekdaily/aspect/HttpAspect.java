@@ -45,6 +45,6 @@ public class HttpAspect {
 
     @AfterReturning(returning = "object",pointcut = "log()")
     public void doAfterReturning(Object object){
-        logger.info("response={}",object.toString());
+        logger.info("response={}",String.valueOf(object));
     }
 }
@@ -0,0 +1,50 @@
+package com.jerry.geekdaily.base;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 游标分页结果（keyset分页）
+ * nextCursor为下一页的游标，客户端原样带回即可；为空说明已经到底了
+ */
+public class CursorPage<T> implements Serializable {
+
+    private List<T> list;//当前页数据
+
+    private String nextCursor;//下一页游标
+
+    private boolean hasNext;//是否还有下一页
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> list, String nextCursor) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    public List<T> getList() {
+        return list;
+    }
+
+    public void setList(List<T> list) {
+        this.list = list;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,56 @@
+package com.jerry.geekdaily.base;
+
+import org.springframework.data.domain.Slice;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 不带总数的分页结果（"加载更多"场景）
+ * 由Slice生成，只多查一条数据来判断hasNext，不执行count(*)
+ */
+public class SlicePage<T> implements Serializable {
+
+    private List<T> list;//当前页数据
+
+    private int page;//当前页码
+
+    private boolean hasNext;//是否还有下一页
+
+    public SlicePage() {
+    }
+
+    public SlicePage(List<T> list, int page, boolean hasNext) {
+        this.list = list;
+        this.page = page;
+        this.hasNext = hasNext;
+    }
+
+    public static <T> SlicePage<T> of(Slice<T> slice) {
+        return new SlicePage<>(slice.getContent(), slice.getNumber(), slice.hasNext());
+    }
+
+    public List<T> getList() {
+        return list;
+    }
+
+    public void setList(List<T> list) {
+        this.list = list;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,178 @@
+package com.jerry.geekdaily.cache;
+
+import com.jerry.geekdaily.config.Constans;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文章数量计数器  按审核状态计数，已审核的再按分类计数
+ * 读：直接读内存，不再每次请求执行count(*)
+ * 写：上传/更新/审核/删除时增减内存并同步HINCRBY到redis（多实例共享）
+ * 定时用group by查询数据库校正一次，管理员也可以手动触发重新统计
+ */
+@Slf4j
+@Component
+public class ArticleCounter {
+
+    private static final String STATUS_FIELD = "status_";
+
+    private static final String CATEGORY_FIELD = "category_";
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    //key为reviewStatus（-1审核失败  0待审核  1已审核）
+    private final Map<Integer, AtomicLong> statusCounts = new ConcurrentHashMap<>();
+
+    //key为categoryId  只统计已审核的文章
+    private final Map<Integer, AtomicLong> categoryCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时优先从redis恢复，redis中没有时才统计数据库
+     * 排在分类字典回填之后执行，保证category_id已经回填
+     */
+    @Order(1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            Map<Object, Object> fields = stringRedisTemplate.opsForHash().entries(Constans.RedisKey.ARTICLE_COUNTER);
+            if (!fields.isEmpty()) {
+                load(fields);
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.error("从redis恢复文章计数失败：" + e.getMessage());
+        }
+        recount();
+    }
+
+    /**
+     * 每10分钟和数据库校正一次  修正并发写入或其他途径造成的偏差
+     */
+    @Scheduled(initialDelay = 10 * 60 * 1000, fixedDelay = 10 * 60 * 1000)
+    public void scheduledRecount() {
+        recount();
+    }
+
+    /**
+     * 按group by重新统计  同时覆盖内存和redis中的计数
+     */
+    public synchronized void recount() {
+        Map<Integer, Long> statuses = toCountMap(articleRepository.countGroupByReviewStatus());
+        Map<Integer, Long> categories = toCountMap(articleRepository.countReviewedGroupByCategoryId());
+        replace(statusCounts, statuses);
+        replace(categoryCounts, categories);
+        try {
+            Map<String, String> fields = new HashMap<>();
+            statuses.forEach((status, count) -> fields.put(STATUS_FIELD + status, String.valueOf(count)));
+            categories.forEach((categoryId, count) -> fields.put(CATEGORY_FIELD + categoryId, String.valueOf(count)));
+            stringRedisTemplate.delete(Constans.RedisKey.ARTICLE_COUNTER);
+            if (!fields.isEmpty()) {
+                stringRedisTemplate.opsForHash().putAll(Constans.RedisKey.ARTICLE_COUNTER, fields);
+            }
+        } catch (RuntimeException e) {
+            log.error("文章计数写入redis失败：" + e.getMessage());
+        }
+        log.info("文章计数校正完成：{}", statuses);
+    }
+
+    /**
+     * 文章状态或分类发生变化时调用  新增时from为null，删除时to为null
+     */
+    public synchronized void move(Integer fromStatus, int fromCategoryId, Integer toStatus, int toCategoryId) {
+        if (Objects.equals(fromStatus, toStatus) && fromCategoryId == toCategoryId) {
+            return;
+        }
+        if (fromStatus != null) {
+            adjust(fromStatus, fromCategoryId, -1);
+        }
+        if (toStatus != null) {
+            adjust(toStatus, toCategoryId, 1);
+        }
+    }
+
+    public long countByStatus(int reviewStatus) {
+        AtomicLong count = statusCounts.get(reviewStatus);
+        return count == null ? 0 : count.get();
+    }
+
+    public long countByCategory(int categoryId) {
+        AtomicLong count = categoryCounts.get(categoryId);
+        return count == null ? 0 : count.get();
+    }
+
+    public Map<Integer, Long> statusCounts() {
+        return snapshot(statusCounts);
+    }
+
+    public Map<Integer, Long> categoryCounts() {
+        return snapshot(categoryCounts);
+    }
+
+    private void adjust(int reviewStatus, int categoryId, long delta) {
+        statusCounts.computeIfAbsent(reviewStatus, k -> new AtomicLong()).addAndGet(delta);
+        if (reviewStatus == 1) {
+            categoryCounts.computeIfAbsent(categoryId, k -> new AtomicLong()).addAndGet(delta);
+        }
+        try {
+            stringRedisTemplate.opsForHash().increment(Constans.RedisKey.ARTICLE_COUNTER, STATUS_FIELD + reviewStatus, delta);
+            if (reviewStatus == 1) {
+                stringRedisTemplate.opsForHash().increment(Constans.RedisKey.ARTICLE_COUNTER, CATEGORY_FIELD + categoryId, delta);
+            }
+        } catch (RuntimeException e) {
+            //redis失败不影响主流程  等下一次校正
+            log.error("文章计数同步redis失败：" + e.getMessage());
+        }
+    }
+
+    private void load(Map<Object, Object> fields) {
+        Map<Integer, Long> statuses = new HashMap<>();
+        Map<Integer, Long> categories = new HashMap<>();
+        fields.forEach((field, value) -> {
+            String name = String.valueOf(field);
+            long count = Long.parseLong(String.valueOf(value));
+            if (name.startsWith(STATUS_FIELD)) {
+                statuses.put(Integer.valueOf(name.substring(STATUS_FIELD.length())), count);
+            } else if (name.startsWith(CATEGORY_FIELD)) {
+                categories.put(Integer.valueOf(name.substring(CATEGORY_FIELD.length())), count);
+            }
+        });
+        synchronized (this) {
+            replace(statusCounts, statuses);
+            replace(categoryCounts, categories);
+        }
+    }
+
+    private static Map<Integer, Long> toCountMap(List<Object[]> rows) {
+        Map<Integer, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private static void replace(Map<Integer, AtomicLong> target, Map<Integer, Long> counts) {
+        target.keySet().retainAll(counts.keySet());
+        counts.forEach((key, count) -> target.computeIfAbsent(key, k -> new AtomicLong()).set(count));
+    }
+
+    private static Map<Integer, Long> snapshot(Map<Integer, AtomicLong> counts) {
+        Map<Integer, Long> result = new TreeMap<>();
+        counts.forEach((key, count) -> result.put(key, count.get()));
+        return result;
+    }
+}
@@ -0,0 +1,225 @@
+package com.jerry.geekdaily.cache;
+
+import com.jerry.geekdaily.domain.Article;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已审核文章的内存快照（按date倒序、articleId倒序）
+ * 读：直接读取volatile数组，不加锁、不访问数据库
+ * 写：上传/更新/审核/删除时复制一份新数组再整体替换（copy-on-write），写操作之间用synchronized串行
+ * 点赞数、浏览数等计数不随每次操作更新，由定时任务整体重建时刷新
+ */
+@Slf4j
+@Component
+public class ArticleFeedStore {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    //date倒序  date相同时articleId倒序   与数据库的keyset分页顺序一致
+    private static final Comparator<ArticleSummaryDTO> FEED_ORDER = (a, b) -> {
+        long dateA = a.getDate() == null ? 0 : a.getDate().getTime();
+        long dateB = b.getDate() == null ? 0 : b.getDate().getTime();
+        if (dateA != dateB) {
+            return dateA > dateB ? -1 : 1;
+        }
+        return Integer.compare(b.getArticleId(), a.getArticleId());
+    };
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    private volatile ArticleSummaryDTO[] snapshot = new ArticleSummaryDTO[0];
+
+    //按articleId索引  与snapshot同时整体替换
+    private volatile Map<Integer, ArticleSummaryDTO> index = Collections.emptyMap();
+
+    private volatile boolean ready = false;
+
+    //列表版本号  快照内容变化或有文章写入时加1，用于列表接口的ETag
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 每5分钟从数据库整体重建一次  刷新计数字段并兜底其他途径的数据变更
+     */
+    @Scheduled(initialDelay = 5 * 60 * 1000, fixedDelay = 5 * 60 * 1000)
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        try {
+            List<ArticleSummaryDTO> summaries = new ArrayList<>();
+            PageRequest batch = PageRequest.of(0, LOAD_BATCH_SIZE);
+            List<ArticleSummaryDTO> articles = articleRepository.findFirstReviewedArticles(batch);
+            while (!articles.isEmpty()) {
+                summaries.addAll(articles);
+                if (articles.size() < LOAD_BATCH_SIZE) {
+                    break;
+                }
+                ArticleSummaryDTO last = articles.get(articles.size() - 1);
+                articles = articleRepository.findReviewedArticlesAfter(last.getDate(), last.getArticleId(), batch);
+            }
+            ArticleSummaryDTO[] array = summaries.toArray(new ArticleSummaryDTO[0]);
+            Arrays.sort(array, FEED_ORDER);
+            if (!Arrays.equals(snapshot, array)) {
+                publish(array);
+            }
+            ready = true;
+            log.info("文章快照重建完成，共{}篇", array.length);
+        } catch (RuntimeException e) {
+            log.error("文章快照重建失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 文章新增或修改后调用  已审核的放入快照，未审核/审核失败的从快照中移除
+     */
+    public synchronized void upsert(Article article) {
+        if (article.getArticleId() == null) {
+            return;
+        }
+        //未审核的文章也会出现在分类列表中  所以任何写入都更新版本号
+        version.incrementAndGet();
+        ArticleSummaryDTO[] current = snapshot;
+        List<ArticleSummaryDTO> list = new ArrayList<>(current.length + 1);
+        for (ArticleSummaryDTO summary : current) {
+            if (!summary.getArticleId().equals(article.getArticleId())) {
+                list.add(summary);
+            }
+        }
+        if (article.getReviewStatus() == 1) {
+            ArticleSummaryDTO summary = new ArticleSummaryDTO(article);
+            int index = Collections.binarySearch(list, summary, FEED_ORDER);
+            list.add(index < 0 ? -index - 1 : index, summary);
+        }
+        publish(list.toArray(new ArticleSummaryDTO[0]));
+    }
+
+    public synchronized void remove(int articleId) {
+        version.incrementAndGet();
+        ArticleSummaryDTO[] current = snapshot;
+        List<ArticleSummaryDTO> list = new ArrayList<>(current.length);
+        for (ArticleSummaryDTO summary : current) {
+            if (summary.getArticleId() != articleId) {
+                list.add(summary);
+            }
+        }
+        if (list.size() != current.length) {
+            publish(list.toArray(new ArticleSummaryDTO[0]));
+        }
+    }
+
+    private void publish(ArticleSummaryDTO[] array) {
+        Map<Integer, ArticleSummaryDTO> byId = new HashMap<>(array.length * 2);
+        for (ArticleSummaryDTO summary : array) {
+            byId.put(summary.getArticleId(), summary);
+        }
+        index = byId;
+        snapshot = array;
+        version.incrementAndGet();
+    }
+
+    //快照是否已经加载完成  未完成时调用方应回退到数据库查询
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public int size() {
+        return snapshot.length;
+    }
+
+    //只包含已审核文章  不在快照中返回null
+    public ArticleSummaryDTO get(int articleId) {
+        return index.get(articleId);
+    }
+
+    /**
+     * 从快照中等概率不重复地随机取count篇（Floyd抽样，只生成count个随机数）
+     * exclude中的文章不参与抽样，排除后数量不足count时忽略exclude
+     */
+    public List<ArticleSummaryDTO> sample(int count, Set<Integer> exclude) {
+        ArticleSummaryDTO[] current = snapshot;
+        //可选文章在快照中的下标  为null时全部可选
+        int[] candidates = null;
+        int m = current.length;
+        if (!exclude.isEmpty()) {
+            int[] allowed = new int[current.length];
+            int k = 0;
+            for (int i = 0; i < current.length; i++) {
+                if (!exclude.contains(current[i].getArticleId())) {
+                    allowed[k++] = i;
+                }
+            }
+            if (k >= count) {
+                candidates = allowed;
+                m = k;
+            }
+        }
+        int target = Math.min(Math.max(count, 0), m);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<Integer> picked = new LinkedHashSet<>();
+        for (int j = m - target; j < m; j++) {
+            int t = random.nextInt(j + 1);
+            picked.add(picked.contains(t) ? j : t);
+        }
+        List<ArticleSummaryDTO> result = new ArrayList<>(target);
+        for (int i : picked) {
+            result.add(current[candidates == null ? i : candidates[i]]);
+        }
+        return result;
+    }
+
+    //O(1)随机取一篇
+    public ArticleSummaryDTO random() {
+        ArticleSummaryDTO[] current = snapshot;
+        return current.length == 0 ? null : current[ThreadLocalRandom.current().nextInt(current.length)];
+    }
+
+    public List<ArticleSummaryDTO> page(int page, int size) {
+        ArticleSummaryDTO[] current = snapshot;
+        long from = (long) page * size;
+        if (page < 0 || size <= 0 || from >= current.length) {
+            return Collections.emptyList();
+        }
+        int to = (int) Math.min(from + size, current.length);
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(current, (int) from, to)));
+    }
+
+    /**
+     * keyset方式取  (date, articleId) 之后的size条，用二分查找定位起点
+     */
+    public List<ArticleSummaryDTO> after(Date date, int articleId, int size) {
+        ArticleSummaryDTO[] current = snapshot;
+        ArticleSummaryDTO key = new ArticleSummaryDTO();
+        key.setDate(date);
+        key.setArticleId(articleId);
+        int index = Arrays.binarySearch(current, key, FEED_ORDER);
+        int from = index < 0 ? -index - 1 : index + 1;
+        if (size <= 0 || from >= current.length) {
+            return Collections.emptyList();
+        }
+        int to = Math.min(from + size, current.length);
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(current, from, to)));
+    }
+}
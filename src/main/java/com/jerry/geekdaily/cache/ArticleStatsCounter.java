@@ -0,0 +1,316 @@
+package com.jerry.geekdaily.cache;
+
+import com.jerry.geekdaily.config.Constans;
+import com.jerry.geekdaily.dto.ArticleStatsDTO;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文章点赞数、评论数、浏览数的实时计数
+ * 每篇文章一个redis hash（article_stats:{id}），用HINCRBY原子累加，多个实例同时写入也不会丢失
+ * key不存在时先用数据库中的值初始化（lua脚本内完成，避免并发初始化覆盖）
+ * 写入过的文章id放入dirty集合，定时批量写回mysql；article表中这几列只由写回任务更新
+ * redis不可用时增量暂存在内存中，恢复后再用HINCRBY补回（不直接写数据库，否则会被写回任务用redis中的值覆盖）
+ */
+@Slf4j
+@Component
+public class ArticleStatsCounter {
+
+    public static final String STARS = "stars";
+
+    public static final String COMMENTS = "comments";
+
+    public static final String VIEWS = "views";
+
+    //列表接口中的计数最多延迟这么久  用于列表版本号
+    public static final long LIST_REFRESH_MILLIS = 30 * 1000;
+
+    private static final int SYNC_BATCH_SIZE = 500;
+
+    private static final long SYNC_LOCK_SECONDS = 60;
+
+    private static final String SYNC_SQL = "update article set stars = ?, comments = ?, views = ? where article_id = ?";
+
+
+    /**
+     * KEYS[1] 计数hash  KEYS[2] dirty集合
+     * ARGV: 字段、增量、文章id、[初始stars、comments、views]
+     * key不存在且没有传初始值时返回nil，由调用方查询数据库后带上初始值再执行一次
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then " +
+            "  if not ARGV[4] then return nil end " +
+            "  redis.call('hmset', KEYS[1], 'stars', ARGV[4], 'comments', ARGV[5], 'views', ARGV[6]) " +
+            "end " +
+            "local value = redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2]) " +
+            "redis.call('sadd', KEYS[2], ARGV[3]) " +
+            "return value", Long.class);
+
+    //key存在时才覆盖  不存在时下次累加会从数据库初始化
+    private static final DefaultRedisScript<Long> OVERWRITE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+            "redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) " +
+            "return 1", Long.class);
+
+    //一次读取多篇文章的计数  不存在的key返回空值
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> MULTI_GET_SCRIPT = new DefaultRedisScript<>(
+            "local result = {} " +
+            "for i, key in ipairs(KEYS) do " +
+            "  result[i] = redis.call('hmget', key, 'stars', 'comments', 'views') " +
+            "end " +
+            "return result", List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    //redis写入失败的增量  key为 文章id:字段，merge/remove都是原子操作，补回时不会丢失并发写入的增量
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 累加计数并返回累加后的值  文章不存在时返回0
+     */
+    public long increment(int articleId, String field, long delta) {
+        try {
+            return incrementRedis(articleId, field, delta);
+        } catch (RuntimeException e) {
+            log.error("文章计数写入redis失败，暂存等待补回：" + e.getMessage());
+            pending.merge(articleId + ":" + field, delta, Long::sum);
+            return 0;
+        }
+    }
+
+    /**
+     * 每5秒把redis写入失败的增量补回  仍然失败的放回去等下一次
+     */
+    @Scheduled(initialDelay = 5 * 1000, fixedDelay = 5 * 1000)
+    public void replayPending() {
+        for (String key : pending.keySet()) {
+            Long delta = pending.remove(key);
+            if (delta == null || delta == 0) {
+                continue;
+            }
+            String[] parts = key.split(":");
+            try {
+                incrementRedis(Integer.parseInt(parts[0]), parts[1], delta);
+            } catch (RuntimeException e) {
+                pending.merge(key, delta, Long::sum);
+                log.error("文章计数补回redis失败，{}条等待下次补回：{}", pending.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        replayPending();
+        if (!pending.isEmpty()) {
+            log.error("停止时仍有{}条文章计数未写入redis：{}", pending.size(), pending);
+        }
+    }
+
+    private long incrementRedis(int articleId, String field, long delta) {
+        List<String> keys = Arrays.asList(key(articleId), Constans.RedisKey.ARTICLE_STATS_DIRTY);
+        Long value = stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, field, String.valueOf(delta), String.valueOf(articleId));
+        if (value == null) {
+            long[] counts = loadCounts(articleId);
+            if (counts == null) {
+                return 0;
+            }
+            value = stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, field, String.valueOf(delta), String.valueOf(articleId),
+                    String.valueOf(counts[0]), String.valueOf(counts[1]), String.valueOf(counts[2]));
+        }
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * 单篇文章的实时计数  redis中没有时读数据库，文章不存在返回null
+     */
+    public ArticleStatsDTO find(int articleId) {
+        long[] counts = multiGet(Collections.singletonList(articleId)).get(articleId);
+        if (counts == null) {
+            counts = loadCounts(articleId);
+        }
+        return counts == null ? null : new ArticleStatsDTO(articleId, counts[0], counts[1], counts[2]);
+    }
+
+    /**
+     * 用redis中的计数替换列表中的计数  返回新的列表，不修改传入的对象（快照中的对象是共享的）
+     */
+    public List<ArticleSummaryDTO> fill(List<ArticleSummaryDTO> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        List<Integer> ids = new ArrayList<>(summaries.size());
+        summaries.forEach(summary -> ids.add(summary.getArticleId()));
+        Map<Integer, long[]> counts = multiGet(ids);
+        if (counts.isEmpty()) {
+            return summaries;
+        }
+        List<ArticleSummaryDTO> result = new ArrayList<>(summaries.size());
+        for (ArticleSummaryDTO summary : summaries) {
+            long[] count = counts.get(summary.getArticleId());
+            if (count == null) {
+                result.add(summary);
+                continue;
+            }
+            ArticleSummaryDTO copy = new ArticleSummaryDTO();
+            BeanUtils.copyProperties(summary, copy);
+            copy.setStars((int) count[0]);
+            copy.setComments((int) count[1]);
+            copy.setViews((int) count[2]);
+            result.add(copy);
+        }
+        return result;
+    }
+
+    /**
+     * 数据库中的计数被重新统计后调用  redis中已有该文章时直接覆盖该字段
+     */
+    public void overwrite(int articleId, String field, long value) {
+        try {
+            stringRedisTemplate.execute(OVERWRITE_SCRIPT, Collections.singletonList(key(articleId)), field, String.valueOf(value));
+        } catch (RuntimeException e) {
+            log.error("覆盖文章计数失败：" + e.getMessage());
+        }
+    }
+
+    //文章删除时调用
+    public void remove(int articleId) {
+        try {
+            stringRedisTemplate.delete(key(articleId));
+            stringRedisTemplate.opsForSet().remove(Constans.RedisKey.ARTICLE_STATS_DIRTY, String.valueOf(articleId));
+        } catch (RuntimeException e) {
+            log.error("删除文章计数失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 每30秒把有变化的计数批量写回数据库
+     * 用redis锁保证同一时间只有一个实例在写回，SPOP取出的id写入失败时放回dirty集合
+     */
+    @Scheduled(initialDelay = 30 * 1000, fixedDelay = 30 * 1000)
+    public void sync() {
+        String owner = UUID.randomUUID().toString();
+        try {
+            if (!tryLock(owner)) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.error("文章计数写回加锁失败：" + e.getMessage());
+            return;
+        }
+        int synced = 0;
+        try {
+            List<String> ids;
+            do {
+                ids = stringRedisTemplate.opsForSet().pop(Constans.RedisKey.ARTICLE_STATS_DIRTY, SYNC_BATCH_SIZE);
+                if (ids == null || ids.isEmpty()) {
+                    break;
+                }
+                try {
+                    synced += write(ids);
+                } catch (RuntimeException e) {
+                    stringRedisTemplate.opsForSet().add(Constans.RedisKey.ARTICLE_STATS_DIRTY, ids.toArray(new String[0]));
+                    throw e;
+                }
+            } while (ids.size() == SYNC_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.error("文章计数写回数据库失败：" + e.getMessage());
+        } finally {
+            unlock(owner);
+        }
+        if (synced > 0) {
+            log.info("文章计数写回完成，共{}篇", synced);
+        }
+    }
+
+    private int write(List<String> ids) {
+        List<Integer> articleIds = new ArrayList<>(ids.size());
+        ids.forEach(id -> articleIds.add(Integer.valueOf(id)));
+        Map<Integer, long[]> counts = multiGet(articleIds);
+        List<Object[]> batch = new ArrayList<>(counts.size());
+        counts.forEach((articleId, count) -> batch.add(new Object[]{count[0], count[1], count[2], articleId}));
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(SYNC_SQL, batch);
+        }
+        return batch.size();
+    }
+
+    //key为文章id  值为[stars, comments, views]，redis中没有的文章不返回
+    private Map<Integer, long[]> multiGet(List<Integer> articleIds) {
+        Map<Integer, long[]> counts = new HashMap<>(articleIds.size() * 2);
+        List<String> keys = new ArrayList<>(articleIds.size());
+        articleIds.forEach(id -> keys.add(key(id)));
+        List<?> rows;
+        try {
+            rows = stringRedisTemplate.execute(MULTI_GET_SCRIPT, keys);
+        } catch (RuntimeException e) {
+            log.error("读取文章计数失败：" + e.getMessage());
+            return counts;
+        }
+        for (int i = 0; rows != null && i < rows.size(); i++) {
+            List<?> row = (List<?>) rows.get(i);
+            if (row == null || row.size() < 3 || row.get(0) == null) {
+                continue;
+            }
+            counts.put(articleIds.get(i), new long[]{toLong(row.get(0)), toLong(row.get(1)), toLong(row.get(2))});
+        }
+        return counts;
+    }
+
+    private long[] loadCounts(int articleId) {
+        List<Object[]> rows = articleRepository.findCounts(articleId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = rows.get(0);
+        return new long[]{((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue()};
+    }
+
+    private boolean tryLock(String owner) {
+        Boolean locked = stringRedisTemplate.execute((RedisCallback<Boolean>) connection -> connection.set(
+                Constans.RedisKey.ARTICLE_STATS_SYNC_LOCK.getBytes(), owner.getBytes(),
+                Expiration.seconds(SYNC_LOCK_SECONDS), RedisStringCommands.SetOption.ifAbsent()));
+        return Boolean.TRUE.equals(locked);
+    }
+
+    private void unlock(String owner) {
+        try {
+            if (owner.equals(stringRedisTemplate.opsForValue().get(Constans.RedisKey.ARTICLE_STATS_SYNC_LOCK))) {
+                stringRedisTemplate.delete(Constans.RedisKey.ARTICLE_STATS_SYNC_LOCK);
+            }
+        } catch (RuntimeException e) {
+            log.error("文章计数写回解锁失败：" + e.getMessage());
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0 : Long.parseLong(String.valueOf(value));
+    }
+
+    private static String key(int articleId) {
+        return Constans.RedisKey.ARTICLE_STATS + articleId;
+    }
+}
@@ -0,0 +1,71 @@
+package com.jerry.geekdaily.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热门分类的内存列表  每个分类缓存最新的前WINDOW_SIZE篇文章（date倒序、articleId倒序）
+ * 只缓存最近访问的MAX_CATEGORIES个分类；文章上传/更新/审核/删除时失效对应分类
+ */
+@Component
+public class CategoryFeedCache {
+
+    public static final int WINDOW_SIZE = 100;
+
+    private static final int MAX_CATEGORIES = 64;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    //计数字段（点赞、浏览）不会实时失效  5分钟后重新加载
+    private final Cache<Integer, List<ArticleSummaryDTO>> feeds = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CATEGORIES)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 第page页落在缓存窗口内时返回该页数据，否则返回null由调用方查询数据库
+     * 窗口内至少要比当前页多一条，才能判断是否还有下一页
+     */
+    public Slice<ArticleSummaryDTO> page(int categoryId, int page, int size) {
+        long to = (long) (page + 1) * size;
+        if (page < 0 || size <= 0 || to >= WINDOW_SIZE) {
+            return null;
+        }
+        List<ArticleSummaryDTO> feed = load(categoryId);
+        int from = page * size;
+        List<ArticleSummaryDTO> content = from >= feed.size()
+                ? Collections.emptyList()
+                : feed.subList(from, (int) Math.min(to, feed.size()));
+        return new SliceImpl<>(content, PageRequest.of(page, size), feed.size() > to);
+    }
+
+    public void evict(int categoryId) {
+        feeds.invalidate(categoryId);
+    }
+
+    public void evictAll() {
+        feeds.invalidateAll();
+    }
+
+    private List<ArticleSummaryDTO> load(int categoryId) {
+        try {
+            return feeds.get(categoryId, () -> Collections.unmodifiableList(
+                    articleRepository.findAllByCategoryId(categoryId, PageRequest.of(0, WINDOW_SIZE))));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+}
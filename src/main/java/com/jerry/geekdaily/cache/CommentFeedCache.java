@@ -0,0 +1,179 @@
+package com.jerry.geekdaily.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jerry.geekdaily.config.Constans;
+import com.jerry.geekdaily.domain.Comment;
+import com.jerry.geekdaily.repository.CommentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 文章最新评论的内存列表  每篇文章缓存最新的WINDOW_SIZE条（date倒序、id倒序）
+ * 只缓存最近访问的MAX_ARTICLES篇文章，写入10分钟后过期；新评论提交后插入到列表头部（copy-on-write）
+ * 多实例部署时通过redis消息通知其他实例删除该文章的列表（点赞只同步该条评论的点赞数），下次读取时重新加载
+ */
+@Slf4j
+@Component
+public class CommentFeedCache {
+
+    public static final int WINDOW_SIZE = 50;
+
+    private static final int MAX_ARTICLES = 1000;
+
+    //按文章id分段的修改计数  加载期间计数变化说明加载结果可能已过期
+    private static final int STRIPES = 64;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final Cache<Integer, List<Comment>> feeds = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ARTICLES)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build();
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String[] body = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+            if (nodeId.equals(body[0])) {
+                return;
+            }
+            if (body.length == 2) {
+                int articleId = Integer.parseInt(body[1]);
+                generations.incrementAndGet(stripe(articleId));
+                feeds.invalidate(articleId);
+            } else if (body.length == 4) {
+                replaceLikeCount(Integer.parseInt(body[1]), Integer.parseInt(body[2]), Integer.parseInt(body[3]));
+            }
+        }, new ChannelTopic(Constans.RedisKey.COMMENT_FEED_CHANNEL));
+    }
+
+    /**
+     * 最新的size条评论  size超出缓存窗口时返回null由调用方查询数据库
+     * 返回size+1条（不足时返回全部），调用方用多出的一条判断是否还有下一页
+     */
+    public List<Comment> first(int articleId, int size) {
+        if (size <= 0 || size >= WINDOW_SIZE) {
+            return null;
+        }
+        List<Comment> feed = load(articleId);
+        return feed.subList(0, Math.min(size + 1, feed.size()));
+    }
+
+    //评论提交后调用  只修改已缓存的列表
+    public void prepend(Comment comment) {
+        //先增加计数再修改  与正在进行的加载交错时由load()丢弃加载结果
+        generations.incrementAndGet(stripe(comment.getArticleId()));
+        feeds.asMap().computeIfPresent(comment.getArticleId(), (id, old) -> {
+            List<Comment> feed = new ArrayList<>(Math.min(old.size() + 1, WINDOW_SIZE));
+            feed.add(comment);
+            feed.addAll(old.subList(0, Math.min(old.size(), WINDOW_SIZE - 1)));
+            return Collections.unmodifiableList(feed);
+        });
+        publish(comment.getArticleId());
+    }
+
+    /**
+     * 点赞后调用  只替换列表中的这一条评论（copy-on-write），不删除整个列表
+     * likeCount是提交后读到的最新值，重复或乱序执行结果一样
+     */
+    public void updateLikeCount(int articleId, int commentId, int likeCount) {
+        replaceLikeCount(articleId, commentId, likeCount);
+        publish(nodeId + ":" + articleId + ":" + commentId + ":" + likeCount);
+    }
+
+    public void evict(int articleId) {
+        generations.incrementAndGet(stripe(articleId));
+        feeds.invalidate(articleId);
+        publish(articleId);
+    }
+
+    private void replaceLikeCount(int articleId, int commentId, int likeCount) {
+        //加载中的列表可能读到旧的点赞数
+        generations.incrementAndGet(stripe(articleId));
+        feeds.asMap().computeIfPresent(articleId, (id, old) -> {
+            for (int i = 0; i < old.size(); i++) {
+                Comment comment = old.get(i);
+                if (comment.getId() == commentId) {
+                    if (comment.getLikeCount() == likeCount) {
+                        return old;
+                    }
+                    Comment liked = new Comment();
+                    BeanUtils.copyProperties(comment, liked);
+                    liked.setLikeCount(likeCount);
+                    List<Comment> feed = new ArrayList<>(old);
+                    feed.set(i, liked);
+                    return Collections.unmodifiableList(feed);
+                }
+            }
+            return old;
+        });
+    }
+
+    private void publish(int articleId) {
+        publish(nodeId + ":" + articleId);
+    }
+
+    private void publish(String message) {
+        try {
+            stringRedisTemplate.convertAndSend(Constans.RedisKey.COMMENT_FEED_CHANNEL, message);
+        } catch (RuntimeException e) {
+            log.error("评论列表失效通知发送失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 加载期间提交的评论  prepend时列表还不在缓存中不会被插入，数据库查询也可能没有读到
+     * 加载完成后计数有变化就删除刚放入的列表，本次结果照常返回，下次读取重新加载
+     */
+    private List<Comment> load(int articleId) {
+        int stripe = stripe(articleId);
+        long generation = generations.get(stripe);
+        boolean[] loaded = new boolean[1];
+        List<Comment> feed;
+        try {
+            feed = feeds.get(articleId, () -> {
+                loaded[0] = true;
+                return Collections.unmodifiableList(
+                        commentRepository.findLatestByArticleId(articleId, PageRequest.of(0, WINDOW_SIZE)));
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        if (loaded[0] && generations.get(stripe) != generation) {
+            feeds.asMap().remove(articleId, feed);
+        }
+        return feed;
+    }
+
+    private static int stripe(int articleId) {
+        return articleId & (STRIPES - 1);
+    }
+}
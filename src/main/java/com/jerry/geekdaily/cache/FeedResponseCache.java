@@ -0,0 +1,87 @@
+package com.jerry.geekdaily.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jerry.geekdaily.config.FastJsonConfiguration;
+import com.jerry.geekdaily.util.GzipUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 热门列表页的响应缓存  保存序列化好的json字节和gzip压缩后的字节
+ * 命中时以ResponseEntity<byte[]>返回，由ByteArrayHttpMessageConverter原样输出，不再经过fastjson序列化
+ * 每条缓存记录生成时的列表版本号（ArticleFeedStore.version），文章有写入后版本号变化，旧缓存不再命中
+ */
+@Slf4j
+@Component
+public class FeedResponseCache {
+
+    //只缓存前几页
+    public static final int HOT_PAGES = 3;
+
+    //每页条数超过该值不缓存  避免任意size把缓存撑大
+    public static final int MAX_PAGE_SIZE = 20;
+
+    private static final String GZIP = "gzip";
+
+    private final Cache<String, CachedResponse> responses = CacheBuilder.newBuilder()
+            .maximumSize(512)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build();
+
+    public static boolean isHotPage(int page, int size) {
+        return page >= 0 && page < HOT_PAGES && size > 0 && size <= MAX_PAGE_SIZE;
+    }
+
+    /**
+     * 缓存中有当前版本的数据时直接返回字节，否则序列化一次后放入缓存
+     * 客户端支持gzip时返回压缩后的字节
+     */
+    public ResponseEntity<byte[]> response(String key, long version, Supplier<?> body, HttpServletRequest request) {
+        CachedResponse cached = get(key, version, body);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(request)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(cached.gzip);
+        }
+        return builder.body(cached.json);
+    }
+
+    private CachedResponse get(String key, long version, Supplier<?> body) {
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached == null || cached.version != version) {
+            cached = new CachedResponse(version, JSON.toJSONBytes(body.get(), FastJsonConfiguration.SERIALIZER_FEATURES));
+            responses.put(key, cached);
+        }
+        return cached;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains(GZIP);
+    }
+
+    private static class CachedResponse {
+
+        private final long version;
+
+        private final byte[] json;
+
+        private final byte[] gzip;
+
+        private CachedResponse(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+            this.gzip = GzipUtils.compress(json);
+        }
+    }
+}
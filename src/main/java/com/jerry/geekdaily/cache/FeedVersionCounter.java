@@ -0,0 +1,80 @@
+package com.jerry.geekdaily.cache;
+
+import com.jerry.geekdaily.config.Constans;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 列表版本号  用于列表接口的ETag和FeedResponseCache
+ * 保存在redis中，多个实例看到的版本号相同；全站列表和每个分类的列表各一个版本号
+ * 文章写入时只增加全站和所属分类的版本号，其他分类的ETag不受影响
+ */
+@Slf4j
+@Component
+public class FeedVersionCounter {
+
+    private static final String ALL = "all";
+
+    //key不存在时用当前时间初始化  redis数据丢失后版本号不会退回到已经用过的值
+    private static final DefaultRedisScript<Long> GET_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then redis.call('set', KEYS[1], ARGV[1]) end " +
+            "return tonumber(redis.call('get', KEYS[1]))", Long.class);
+
+    private static final DefaultRedisScript<Long> BUMP_SCRIPT = new DefaultRedisScript<>(
+            "for _, key in ipairs(KEYS) do " +
+            "  if redis.call('exists', key) == 0 then redis.call('set', key, ARGV[1]) end " +
+            "  redis.call('incr', key) " +
+            "end " +
+            "return #KEYS", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ArticleFeedStore articleFeedStore;
+
+    /**
+     * categoryId为null时为全站列表的版本号
+     * redis不可用时退回本机快照的版本号（只在本机有效，但写入后同样会变化）
+     */
+    public long version(Integer categoryId) {
+        try {
+            Long version = stringRedisTemplate.execute(GET_SCRIPT, Collections.singletonList(key(categoryId)),
+                    String.valueOf(System.currentTimeMillis()));
+            if (version != null) {
+                return version;
+            }
+        } catch (RuntimeException e) {
+            log.error("读取列表版本号失败：" + e.getMessage());
+        }
+        return articleFeedStore.version();
+    }
+
+    //文章写入后调用  传入文章修改前后所属的分类
+    public void bump(int... categoryIds) {
+        List<String> keys = new ArrayList<>(categoryIds.length + 1);
+        keys.add(key(null));
+        for (int categoryId : categoryIds) {
+            String key = key(categoryId);
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        try {
+            stringRedisTemplate.execute(BUMP_SCRIPT, keys, String.valueOf(System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            log.error("更新列表版本号失败：" + e.getMessage());
+        }
+    }
+
+    private static String key(Integer categoryId) {
+        return Constans.RedisKey.FEED_VERSION + (categoryId == null ? ALL : String.valueOf(categoryId));
+    }
+}
@@ -0,0 +1,186 @@
+package com.jerry.geekdaily.cache;
+
+import com.jerry.geekdaily.config.Constans;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 热门文章排行  点赞、评论、浏览、发布时增加热度，热度按半衰期指数衰减
+ * 不保存"当前热度"，而是把每次增加的热度换算到基准时间：w * 2^((t - epoch) / 半衰期)
+ * 这样旧的分数不需要随时间重算，zset中的排序始终等于衰减后热度的排序
+ * 分数随时间指数增长，定期把基准时间移到现在、所有zset整体乘以缩放系数（ZUNIONSTORE WEIGHTS）
+ * 全站和每个分类各一个zset，只包含已审核的文章
+ */
+@Slf4j
+@Component
+public class HotArticleRanking {
+
+    private static final long HALF_LIFE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    //基准时间超过7个半衰期后缩放一次  分数最多增长2^7倍
+    private static final long REBASE_AFTER_MILLIS = 7 * HALF_LIFE_MILLIS;
+
+    //缩放时每个zset只保留前面这么多篇
+    private static final int MAX_RANKED = 1000;
+
+    private static final double VIEW_WEIGHT = 1;
+
+    private static final double STAR_WEIGHT = 5;
+
+    private static final double COMMENT_WEIGHT = 10;
+
+    //审核通过时的初始热度  让新文章有机会进入排行
+    private static final double PUBLISH_WEIGHT = 20;
+
+    /**
+     * KEYS: 全站zset、分类zset、基准时间、key集合
+     * ARGV: 当前时间、热度、半衰期、文章id
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = tonumber(redis.call('get', KEYS[3])) " +
+            "if not epoch then " +
+            "  redis.call('set', KEYS[3], ARGV[1]) " +
+            "  epoch = tonumber(ARGV[1]) " +
+            "end " +
+            "local score = tonumber(ARGV[2]) * math.pow(2, (tonumber(ARGV[1]) - epoch) / tonumber(ARGV[3])) " +
+            "redis.call('zincrby', KEYS[1], score, ARGV[4]) " +
+            "redis.call('zincrby', KEYS[2], score, ARGV[4]) " +
+            "redis.call('sadd', KEYS[4], KEYS[1], KEYS[2]) " +
+            "return 1", Long.class);
+
+    /**
+     * KEYS: 基准时间、key集合
+     * ARGV: 当前时间、缩放间隔、半衰期、保留数量
+     * 多个实例同时执行时只有第一次生效
+     */
+    private static final DefaultRedisScript<Long> REBASE_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = tonumber(redis.call('get', KEYS[1])) " +
+            "local now = tonumber(ARGV[1]) " +
+            "if not epoch or now - epoch < tonumber(ARGV[2]) then return 0 end " +
+            "local factor = math.pow(2, (epoch - now) / tonumber(ARGV[3])) " +
+            "local keys = redis.call('smembers', KEYS[2]) " +
+            "for _, key in ipairs(keys) do " +
+            "  redis.call('zunionstore', key, 1, key, 'WEIGHTS', factor) " +
+            "  redis.call('zremrangebyscore', key, '-inf', 0) " +
+            "  redis.call('zremrangebyrank', key, 0, -tonumber(ARGV[4]) - 1) " +
+            "end " +
+            "redis.call('set', KEYS[1], ARGV[1]) " +
+            "return #keys", Long.class);
+
+    /**
+     * KEYS: 原分类zset、新分类zset、key集合
+     * ARGV: 文章id
+     * 热度从原分类移到新分类  全站zset不变
+     */
+    private static final DefaultRedisScript<Long> MOVE_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('zscore', KEYS[1], ARGV[1]) " +
+            "if not score then return 0 end " +
+            "redis.call('zrem', KEYS[1], ARGV[1]) " +
+            "redis.call('zincrby', KEYS[2], score, ARGV[1]) " +
+            "redis.call('sadd', KEYS[3], KEYS[2]) " +
+            "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ArticleFeedStore articleFeedStore;
+
+    public void recordViews(int articleId, long views) {
+        record(articleId, VIEW_WEIGHT * views);
+    }
+
+    //取消点赞时delta为-1
+    public void recordStar(int articleId, int delta) {
+        record(articleId, STAR_WEIGHT * delta);
+    }
+
+    public void recordComment(int articleId) {
+        record(articleId, COMMENT_WEIGHT);
+    }
+
+    //文章审核通过后调用  需要在文章放入快照之后
+    public void recordPublish(int articleId) {
+        record(articleId, PUBLISH_WEIGHT);
+    }
+
+    //已审核的文章换了分类时调用
+    public void moveCategory(int articleId, int fromCategoryId, int toCategoryId) {
+        if (fromCategoryId == toCategoryId) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(MOVE_SCRIPT,
+                    Arrays.asList(categoryKey(fromCategoryId), categoryKey(toCategoryId), Constans.RedisKey.HOT_ARTICLES_KEYS),
+                    String.valueOf(articleId));
+        } catch (RuntimeException e) {
+            log.error("热门文章分类移动失败：" + e.getMessage());
+        }
+    }
+
+    //文章删除、审核不通过或修改后需要重新审核时调用
+    public void remove(int articleId, int categoryId) {
+        try {
+            stringRedisTemplate.opsForZSet().remove(Constans.RedisKey.HOT_ARTICLES, String.valueOf(articleId));
+            stringRedisTemplate.opsForZSet().remove(categoryKey(categoryId), String.valueOf(articleId));
+        } catch (RuntimeException e) {
+            log.error("热门文章移除失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 热度最高的size篇文章id  categoryId为null时为全站
+     */
+    public List<Integer> top(Integer categoryId, int size) {
+        String key = categoryId == null ? Constans.RedisKey.HOT_ARTICLES : categoryKey(categoryId);
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(key, 0, size - 1);
+        List<Integer> articleIds = new ArrayList<>();
+        if (members != null) {
+            members.forEach(member -> articleIds.add(Integer.valueOf(member)));
+        }
+        return articleIds;
+    }
+
+    @Scheduled(initialDelay = 60 * 60 * 1000, fixedDelay = 60 * 60 * 1000)
+    public void rebase() {
+        try {
+            Long count = stringRedisTemplate.execute(REBASE_SCRIPT,
+                    Arrays.asList(Constans.RedisKey.HOT_ARTICLES_EPOCH, Constans.RedisKey.HOT_ARTICLES_KEYS),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(REBASE_AFTER_MILLIS),
+                    String.valueOf(HALF_LIFE_MILLIS), String.valueOf(MAX_RANKED));
+            if (count != null && count > 0) {
+                log.info("热门文章分数缩放完成，共{}个排行", count);
+            }
+        } catch (RuntimeException e) {
+            log.error("热门文章分数缩放失败：" + e.getMessage());
+        }
+    }
+
+    private void record(int articleId, double weight) {
+        //只有已审核的文章进入排行
+        ArticleSummaryDTO summary = articleFeedStore.get(articleId);
+        if (summary == null || weight == 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(INCREMENT_SCRIPT,
+                    Arrays.asList(Constans.RedisKey.HOT_ARTICLES, categoryKey(summary.getCategoryId()),
+                            Constans.RedisKey.HOT_ARTICLES_EPOCH, Constans.RedisKey.HOT_ARTICLES_KEYS),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(weight),
+                    String.valueOf(HALF_LIFE_MILLIS), String.valueOf(articleId));
+        } catch (RuntimeException e) {
+            log.error("热门文章热度更新失败：" + e.getMessage());
+        }
+    }
+
+    private static String categoryKey(int categoryId) {
+        return Constans.RedisKey.HOT_ARTICLES + ":" + categoryId;
+    }
+}
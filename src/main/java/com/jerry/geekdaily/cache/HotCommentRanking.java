@@ -0,0 +1,140 @@
+package com.jerry.geekdaily.cache;
+
+import com.jerry.geekdaily.config.Constans;
+import com.jerry.geekdaily.repository.CommentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每篇文章点赞数最多的评论  每篇文章一个zset（分数为点赞数），只保留前MAX_RANKED条
+ * zset不存在时从(article_id, like_count, id)索引取前MAX_RANKED条重建，不需要扫描文章的全部评论
+ * 点赞时已在zset中的评论按增量修改分数，不在的按最新点赞数加入，再截掉多出的部分
+ */
+@Slf4j
+@Component
+public class HotCommentRanking {
+
+    //一次最多获取的热门评论数
+    public static final int MAX_SIZE = 50;
+
+    //比MAX_SIZE多保留一些  取消点赞导致排名下降时前MAX_SIZE条仍然准确
+    private static final int MAX_RANKED = 100;
+
+    private static final long EXPIRE_DAYS = 7;
+
+    /**
+     * KEYS: 文章的zset
+     * ARGV: 评论id、点赞数变化、最新点赞数、保留数量、过期秒数
+     * zset不存在时不处理  等下次读取时重建
+     */
+    private static final DefaultRedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+            "local score " +
+            "if redis.call('zscore', KEYS[1], ARGV[1]) then " +
+            "  score = tonumber(redis.call('zincrby', KEYS[1], ARGV[2], ARGV[1])) " +
+            "else " +
+            "  score = tonumber(ARGV[3]) " +
+            "  redis.call('zadd', KEYS[1], score, ARGV[1]) " +
+            "end " +
+            "if score <= 0 then redis.call('zrem', KEYS[1], ARGV[1]) end " +
+            "redis.call('zremrangebyrank', KEYS[1], 0, -tonumber(ARGV[4]) - 1) " +
+            "redis.call('expire', KEYS[1], ARGV[5]) " +
+            "return 1", Long.class);
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 评论点赞/取消点赞提交后调用
+     * likeCount为提交后读取的点赞数，只在评论不在zset中时使用
+     */
+    public void update(int articleId, int commentId, int delta, int likeCount) {
+        try {
+            stringRedisTemplate.execute(UPDATE_SCRIPT, Collections.singletonList(key(articleId)),
+                    String.valueOf(commentId), String.valueOf(delta), String.valueOf(likeCount),
+                    String.valueOf(MAX_RANKED), String.valueOf(TimeUnit.DAYS.toSeconds(EXPIRE_DAYS)));
+        } catch (RuntimeException e) {
+            //redis失败时删除zset  下次读取时从数据库重建
+            log.error("热门评论更新失败：" + e.getMessage());
+            remove(articleId);
+        }
+    }
+
+    //点赞数最多的size条评论id  点赞数倒序
+    public List<Integer> top(int articleId, int size) {
+        String key = key(articleId);
+        try {
+            Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(key, 0, size - 1);
+            if (members != null && !members.isEmpty()) {
+                List<Integer> commentIds = new ArrayList<>(members.size());
+                members.forEach(member -> commentIds.add(Integer.valueOf(member)));
+                return commentIds;
+            }
+        } catch (RuntimeException e) {
+            log.error("热门评论读取失败：" + e.getMessage());
+            return load(articleId, size);
+        }
+        return rebuild(articleId, size);
+    }
+
+    public void remove(int articleId) {
+        try {
+            stringRedisTemplate.delete(key(articleId));
+        } catch (RuntimeException e) {
+            log.error("热门评论删除失败：" + e.getMessage());
+        }
+    }
+
+    //从索引取前MAX_RANKED条写入zset  没有点赞过的评论时不写入
+    private List<Integer> rebuild(int articleId, int size) {
+        List<Object[]> rows = commentRepository.findTopLikeCounts(articleId, PageRequest.of(0, MAX_RANKED));
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String key = key(articleId);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (Object[] row : rows) {
+                    conn.zAdd(key, ((Number) row[1]).doubleValue(), String.valueOf(row[0]));
+                }
+                conn.expire(key, TimeUnit.DAYS.toSeconds(EXPIRE_DAYS));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("热门评论重建失败：" + e.getMessage());
+        }
+        return toIds(rows, size);
+    }
+
+    private List<Integer> load(int articleId, int size) {
+        return toIds(commentRepository.findTopLikeCounts(articleId, PageRequest.of(0, size)), size);
+    }
+
+    private static List<Integer> toIds(List<Object[]> rows, int size) {
+        List<Integer> commentIds = new ArrayList<>(Math.min(rows.size(), size));
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            commentIds.add(((Number) rows.get(i)[0]).intValue());
+        }
+        return commentIds;
+    }
+
+    private static String key(int articleId) {
+        return Constans.RedisKey.HOT_COMMENTS + articleId;
+    }
+}
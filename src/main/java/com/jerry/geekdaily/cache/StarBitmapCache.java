@@ -0,0 +1,105 @@
+package com.jerry.geekdaily.cache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.jerry.geekdaily.config.Constans;
+import com.jerry.geekdaily.repository.StarsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户点赞过的文章id集合  每个用户一个RoaringBitmap，第一次查询时从数据库加载
+ * 位图加载后不再修改，点赞/取消时复制一份再整体替换，读取不加锁
+ * 多实例部署时通过redis消息通知其他实例删除该用户的位图，下次查询重新加载
+ */
+@Slf4j
+@Component
+public class StarBitmapCache {
+
+    private static final int MAX_USERS = 10000;
+
+    //本实例标识  收到自己发出的消息时忽略
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private StarsRepository starsRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    //兜底过期时间  防止漏掉失效消息时一直使用旧数据
+    private final LoadingCache<Integer, RoaringBitmap> bitmaps = CacheBuilder.newBuilder()
+            .maximumSize(MAX_USERS)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build(new CacheLoader<Integer, RoaringBitmap>() {
+                @Override
+                public RoaringBitmap load(Integer userId) {
+                    RoaringBitmap bitmap = new RoaringBitmap();
+                    starsRepository.findStarredArticleIds(userId).forEach(bitmap::add);
+                    bitmap.runOptimize();
+                    return bitmap;
+                }
+            });
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String[] body = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+            if (body.length == 2 && !nodeId.equals(body[0])) {
+                bitmaps.invalidate(Integer.valueOf(body[1]));
+            }
+        }, new ChannelTopic(Constans.RedisKey.STAR_BITMAP_CHANNEL));
+    }
+
+    public boolean isStarred(int userId, int articleId) {
+        return bitmaps.getUnchecked(userId).contains(articleId);
+    }
+
+    //articleIds中该用户点赞过的文章id  保持传入顺序
+    public List<Integer> filterStarred(int userId, List<Integer> articleIds) {
+        RoaringBitmap bitmap = bitmaps.getUnchecked(userId);
+        List<Integer> starred = new ArrayList<>();
+        for (Integer articleId : articleIds) {
+            if (articleId != null && bitmap.contains(articleId)) {
+                starred.add(articleId);
+            }
+        }
+        return starred;
+    }
+
+    /**
+     * 点赞状态变化后调用  只修改已加载的位图，未加载的下次查询时从数据库加载
+     */
+    public void update(int userId, int articleId, boolean starred) {
+        bitmaps.asMap().computeIfPresent(userId, (id, old) -> {
+            RoaringBitmap bitmap = old.clone();
+            if (starred) {
+                bitmap.add(articleId);
+            } else {
+                bitmap.remove(articleId);
+            }
+            return bitmap;
+        });
+        try {
+            stringRedisTemplate.convertAndSend(Constans.RedisKey.STAR_BITMAP_CHANNEL, nodeId + ":" + userId);
+        } catch (RuntimeException e) {
+            log.error("点赞位图失效通知发送失败：" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.jerry.geekdaily.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文章浏览数  先在内存中累加（每篇文章一个LongAdder），定时合并写入redis计数
+ * 每次浏览不访问redis和数据库，写回mysql由ArticleStatsCounter批量完成
+ */
+@Slf4j
+@Component
+public class ViewCounter {
+
+    @Autowired
+    private ArticleStatsCounter articleStatsCounter;
+
+    @Autowired
+    private HotArticleRanking hotArticleRanking;
+
+    //正在累加的浏览数  每次flush换成新的map，写入过的文章不会一直留在内存中
+    private volatile Map<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+
+    //上一次flush换下的map  换下时可能还有线程正在累加，下一次flush再写一遍后丢弃
+    private Map<Integer, LongAdder> retired = Collections.emptyMap();
+
+    public void increment(int articleId) {
+        pending.computeIfAbsent(articleId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * 每2秒写入一次
+     * 先sum再减去已写入的数量（不用sumThenReset），写入期间新增的浏览数留到下一次
+     */
+    @Scheduled(initialDelay = 2 * 1000, fixedDelay = 2 * 1000)
+    public synchronized void flush() {
+        Map<Integer, LongAdder> flushing = pending;
+        pending = new ConcurrentHashMap<>();
+        write(retired);
+        write(flushing);
+        retired = flushing;
+    }
+
+    private void write(Map<Integer, LongAdder> views) {
+        views.forEach((articleId, adder) -> {
+            long count = adder.sum();
+            if (count <= 0) {
+                return;
+            }
+            adder.add(-count);
+            try {
+                articleStatsCounter.increment(articleId, ArticleStatsCounter.VIEWS, count);
+                hotArticleRanking.recordViews(articleId, count);
+            } catch (RuntimeException e) {
+                //写入失败  数量加回当前的map等下一次
+                pending.computeIfAbsent(articleId, id -> new LongAdder()).add(count);
+                log.error("浏览数写入失败：" + e.getMessage());
+            }
+        });
+    }
+
+    //停机前把剩余的浏览数写入
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+}
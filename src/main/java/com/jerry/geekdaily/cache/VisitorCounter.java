@@ -0,0 +1,121 @@
+package com.jerry.geekdaily.cache;
+
+import com.jerry.geekdaily.config.Constans;
+import com.jerry.geekdaily.dto.VisitorCountDTO;
+import com.jerry.geekdaily.util.DateUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 独立访客统计  每篇文章每天、全站每天各一个HyperLogLog（最多12KB，与访问量无关）
+ * 浏览时先放入内存队列，定时按key合并后批量PFADD
+ * 周、月的数据用PFCOUNT同时统计多天的key（redis内部合并），不单独保存
+ */
+@Slf4j
+@Component
+public class VisitorCounter {
+
+    //月统计需要最近30天的数据  多保留两天
+    private static final long KEEP_DAYS = 32;
+
+    private static final int WEEK_DAYS = 7;
+
+    private static final int MONTH_DAYS = 30;
+
+    //队列上限  超过后丢弃（估算值，少量丢弃影响很小），防止redis不可用时内存无限增长
+    private static final int MAX_PENDING = 100000;
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    //[key, 访客]
+    private final Queue<String[]> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingSize = new AtomicInteger();
+
+    /**
+     * 记录一次访问  visitor为登录用户名或ip+UA的摘要
+     */
+    public void add(int articleId, String visitor) {
+        if (pendingSize.get() >= MAX_PENDING) {
+            return;
+        }
+        String day = DateUtils.getDay(System.currentTimeMillis());
+        pendingSize.addAndGet(2);
+        pending.offer(new String[]{articleKey(articleId, day), visitor});
+        pending.offer(new String[]{siteKey(day), visitor});
+    }
+
+    @Scheduled(initialDelay = 2 * 1000, fixedDelay = 2 * 1000)
+    public synchronized void flush() {
+        Map<String, Set<String>> batch = new HashMap<>();
+        String[] entry;
+        while ((entry = pending.poll()) != null) {
+            pendingSize.decrementAndGet();
+            batch.computeIfAbsent(entry[0], k -> new HashSet<>()).add(entry[1]);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        long ttl = TimeUnit.DAYS.toSeconds(KEEP_DAYS);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                batch.forEach((key, visitors) -> {
+                    redis.pfAdd(key, visitors.toArray(new String[0]));
+                    redis.expire(key, ttl);
+                });
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("独立访客写入redis失败：" + e.getMessage());
+        }
+    }
+
+    public VisitorCountDTO countArticle(int articleId) {
+        return count(day -> articleKey(articleId, day));
+    }
+
+    public VisitorCountDTO countSite() {
+        return count(VisitorCounter::siteKey);
+    }
+
+    private VisitorCountDTO count(Function<String, String> keyOfDay) {
+        long now = System.currentTimeMillis();
+        String[] keys = new String[MONTH_DAYS];
+        for (int i = 0; i < MONTH_DAYS; i++) {
+            keys[i] = keyOfDay.apply(DateUtils.getDay(now - i * DAY_MILLIS));
+        }
+        long today = stringRedisTemplate.opsForHyperLogLog().size(keys[0]);
+        long week = stringRedisTemplate.opsForHyperLogLog().size(Arrays.copyOf(keys, WEEK_DAYS));
+        long month = stringRedisTemplate.opsForHyperLogLog().size(keys);
+        return new VisitorCountDTO(today, week, month);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private static String articleKey(int articleId, String day) {
+        return Constans.RedisKey.ARTICLE_VISITORS + articleId + ":" + day;
+    }
+
+    private static String siteKey(String day) {
+        return Constans.RedisKey.SITE_VISITORS + day;
+    }
+}
@@ -20,6 +20,20 @@ public class Constans {
     @Retention(RetentionPolicy.SOURCE)
     public @interface RedisKey {
         String ARTICLE_TOTAL_VIEWS = "article_total_views";//当天文章总阅读数
+        String ARTICLE_COUNTER = "article_counter";//文章数量计数（hash  按审核状态、分类）
+        String ARTICLE_STATS = "article_stats:";//单篇文章的点赞、评论、浏览计数（hash）  后接文章id
+        String ARTICLE_STATS_DIRTY = "article_stats_dirty";//计数有变化、等待写回数据库的文章id集合
+        String ARTICLE_STATS_SYNC_LOCK = "article_stats_sync_lock";//计数写回数据库的锁
+        String ARTICLE_VISITORS = "article_uv:";//单篇文章每天的独立访客（HyperLogLog）  后接 文章id:日期
+        String SITE_VISITORS = "site_uv:";//全站每天的独立访客（HyperLogLog）  后接日期
+        String HOT_ARTICLES = "hot_articles";//热门文章（zset  分数为按时间衰减的热度），分类的热门后接 :分类id
+        String HOT_ARTICLES_EPOCH = "hot_articles_epoch";//热度分数的基准时间
+        String HOT_ARTICLES_KEYS = "hot_articles_keys";//所有热门文章zset的key  基准时间变化时统一缩放
+        String POINTS_BOARD = "points_board:";//积分排行（zset）  后接 all、day:日期、week:周
+        String STAR_BITMAP_CHANNEL = "star_bitmap_invalidate";//用户点赞位图失效通知（pub/sub）
+        String COMMENT_FEED_CHANNEL = "comment_feed_invalidate";//文章最新评论列表失效通知（pub/sub）
+        String FEED_VERSION = "feed_version:";//列表版本号  后接 all 或分类id
+        String HOT_COMMENTS = "hot_comments:";//文章的热门评论（zset  分数为点赞数）  后接文章id
     }
 
     @Retention(RetentionPolicy.SOURCE)
@@ -64,18 +64,26 @@ public class FastJsonConfiguration extends WebMvcConfigurerAdapter
 //        converters.add(fastConverter);
 //    }
 
+    //接口返回json使用的序列化配置  预序列化的响应缓存（FeedResponseCache）也使用同一份
+    public static final SerializerFeature[] SERIALIZER_FEATURES = {
+            SerializerFeature.SortField,
+            SerializerFeature.DisableCircularReferenceDetect,
+            SerializerFeature.WriteNullListAsEmpty,
+            SerializerFeature.WriteNullStringAsEmpty
+    };
+
     /* 方式二：注入Bean : HttpMessageConverters，以支持fastjson*/
     @Bean
     public HttpMessageConverters fastJsonHttpMessageConverters() {
-        FastJsonHttpMessageConverter fastConvert = new FastJsonHttpMessageConverter();
+        FastJsonHttpMessageConverter fastConvert = new FastJsonHttpMessageConverter() {
+            //预先序列化好的字节（FeedResponseCache）不再转成json  交给ByteArrayHttpMessageConverter原样输出
+            @Override
+            protected boolean supports(Class<?> clazz) {
+                return clazz != byte[].class;
+            }
+        };
         FastJsonConfig fastJsonConfig = new FastJsonConfig();
-        fastJsonConfig.setSerializerFeatures(SerializerFeature.PrettyFormat);
-        fastJsonConfig.setSerializerFeatures(
-                SerializerFeature.SortField,
-                SerializerFeature.DisableCircularReferenceDetect,
-                SerializerFeature.WriteNullListAsEmpty,
-                SerializerFeature.WriteNullStringAsEmpty
-        );
+        fastJsonConfig.setSerializerFeatures(SERIALIZER_FEATURES);
         //附加：处理中文乱码（后期添加）
         List<MediaType> fastMedisTypes=new ArrayList<MediaType>();
         fastMedisTypes.add(MediaType.APPLICATION_JSON_UTF8);
@@ -1,41 +1,70 @@
 package com.jerry.geekdaily.controller;
 
+import com.alibaba.fastjson.JSON;
 import com.jerry.geekdaily.annotation.AccessLimit;
 import com.jerry.geekdaily.annotation.Pass;
+import com.jerry.geekdaily.base.CursorPage;
 import com.jerry.geekdaily.base.Result;
 import com.jerry.geekdaily.base.ResultCode;
 import com.jerry.geekdaily.base.ResultUtils;
+import com.jerry.geekdaily.base.SlicePage;
+import com.jerry.geekdaily.cache.FeedResponseCache;
 import com.jerry.geekdaily.config.Constans;
+import com.jerry.geekdaily.config.jwt.JwtUtil;
 import com.jerry.geekdaily.domain.Article;
 import com.jerry.geekdaily.domain.Stars;
 import com.jerry.geekdaily.domain.User;
+import com.jerry.geekdaily.dto.ArticleCountDTO;
+import com.jerry.geekdaily.dto.ArticleStatsDTO;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
 import com.jerry.geekdaily.dto.StarsDTO;
+import com.jerry.geekdaily.dto.UserBriefDTO;
 import com.jerry.geekdaily.dto.UpdateArticleDTO;
+import com.jerry.geekdaily.dto.VisitorCountDTO;
+import com.jerry.geekdaily.service.ArticleContentService;
+import com.jerry.geekdaily.service.ArticleRenderService;
 import com.jerry.geekdaily.service.ArticleService;
+import com.jerry.geekdaily.service.CategoryService;
+import com.jerry.geekdaily.service.FeaturedService;
 import com.jerry.geekdaily.service.StarsService;
 import com.jerry.geekdaily.service.UserService;
+import com.jerry.geekdaily.util.ETagUtils;
 import com.jerry.geekdaily.util.FileUtils;
 import com.jerry.geekdaily.util.OSSUploadUtil;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.subject.Subject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Slf4j
 @Api(value = "ArticleController", description = "文章管理相关接口")
@@ -48,6 +77,21 @@ public class ArticleController {
     @Autowired
     private ArticleService articleService;
 
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ArticleContentService articleContentService;
+
+    @Autowired
+    private ArticleRenderService articleRenderService;
+
+    @Autowired
+    private FeaturedService featuredService;
+
+    @Autowired
+    private FeedResponseCache feedResponseCache;
+
     @Autowired
     private StarsService starsService;
 
@@ -94,32 +138,130 @@ public class ArticleController {
         return ResultUtils.ok("删除文章成功");
     }
 
-    @ApiOperation(value = "根据分类获取文章", notes = "根据分类获取文章接口")
+    @ApiOperation(value = "根据分类获取文章", notes = "根据分类获取文章接口  slice为true时返回{list, page, hasNext}")
     @AccessLimit(perSecond = 50,timeOut = 500)//与Pass注解同时使用，Pass注解有时候无效，很奇怪
     @Pass
-    @PostMapping("/getArticleListByCategory")
-    public Result<Article> getArticleListByCategory(@RequestParam("page") Integer page,
+    @RequestMapping(value = "/getArticleListByCategory", method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<?> getArticleListByCategory(@RequestParam("page") Integer page,
+                                                      @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
+                                                      @RequestParam("category") String category,
+                                                      @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice,
+                                                      ServletWebRequest request) {
+        long version = articleService.getFeedVersion(categoryService.findCategoryId(category));
+        String etag = ETagUtils.feedETag(version);
+        if (ETagUtils.checkNotModified(request, etag)) {
+            return ETagUtils.notModified(etag);
+        }
+        Supplier<Result<ArticleSummaryDTO>> body = () -> {
+            Slice<ArticleSummaryDTO> articles = articleService.findAllByCategory(category, PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
+            return ResultUtils.ok(slice ? SlicePage.of(articles) : articles.getContent());
+        };
+        if (FeedResponseCache.isHotPage(page, size)) {
+            String key = "category:" + categoryService.normalize(category) + ":" + page + ":" + size + ":" + slice;
+            return feedResponseCache.response(key, version, body, request.getRequest());
+        }
+        return ResponseEntity.ok(body.get());
+    }
+
+    @ApiOperation(value = "根据分类获取文章（游标分页）", notes = "cursor为空获取第一页，之后传入上一页返回的nextCursor")
+    @AccessLimit(perSecond = 50,timeOut = 500)
+    @Pass
+    @RequestMapping(value = "/getArticleListByCategoryCursor", method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<?> getArticleListByCategoryCursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
+                                                            @RequestParam("category") String category,
+                                                            ServletWebRequest request){
+        String etag = ETagUtils.feedETag(articleService.getFeedVersion(categoryService.findCategoryId(category)));
+        if (ETagUtils.checkNotModified(request, etag)) {
+            return ETagUtils.notModified(etag);
+        }
+        return ResponseEntity.ok(ResultUtils.ok(articleService.findAllByCategoryByCursor(category, cursor, size)));
+    }
+
+    @ApiOperation(value = "获取文章列表", notes = "slice为true时返回{list, page, hasNext}")
+    @AccessLimit(perSecond = 50,timeOut = 500)
+    @Pass
+    @RequestMapping(value = "/getArticleList", method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<?> getArticleList(@RequestParam("page") Integer page,
+                                            @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
+                                            @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice,
+                                            ServletWebRequest request) {
+        long version = articleService.getFeedVersion(null);
+        String etag = ETagUtils.feedETag(version);
+        if (ETagUtils.checkNotModified(request, etag)) {
+            return ETagUtils.notModified(etag);
+        }
+        Supplier<Result<ArticleSummaryDTO>> body = () -> {
+            Page<ArticleSummaryDTO> pages = articleService.findAllReviewedArticles(PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
+            return ResultUtils.ok(slice ? SlicePage.of(pages) : pages.getContent());
+        };
+        //前几页直接写预先序列化好的字节
+        if (FeedResponseCache.isHotPage(page, size)) {
+            return feedResponseCache.response("list:" + page + ":" + size + ":" + slice, version, body, request.getRequest());
+        }
+        return ResponseEntity.ok(body.get());
+    }
+
+    @ApiOperation(value = "获取文章列表（游标分页）", notes = "cursor为空获取第一页，之后传入上一页返回的nextCursor")
+    @AccessLimit(perSecond = 50,timeOut = 500)
+    @Pass
+    @RequestMapping(value = "/getArticleListByCursor", method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<?> getArticleListByCursor(@RequestParam(value = "cursor", required = false) String cursor,
                                                     @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
-                                                    @RequestParam("category") String category){
-        Page<Article> pages = articleService.findAllByCategory(category, PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
-        return ResultUtils.ok(pages.getContent());
+                                                    ServletWebRequest request) {
+        String etag = ETagUtils.feedETag(articleService.getFeedVersion(null));
+        if (ETagUtils.checkNotModified(request, etag)) {
+            return ETagUtils.notModified(etag);
+        }
+        return ResponseEntity.ok(ResultUtils.ok(articleService.findReviewedArticlesByCursor(cursor, size)));
+    }
+
+    @ApiOperation(value = "批量获取文章", notes = "articleIds以逗号分隔，最多50个，按传入顺序返回文章摘要，不存在或未审核的文章不返回")
+    @AccessLimit(perSecond = 50,timeOut = 500)
+    @Pass
+    @PostMapping("/getArticlesByIds")
+    public Result<ArticleSummaryDTO> getArticlesByIds(@RequestParam("articleIds") String articleIds) {
+        //空的或非数字的id直接忽略
+        List<Integer> ids = new ArrayList<>();
+        for (String id : articleIds.split(",")) {
+            try {
+                ids.add(Integer.valueOf(id.trim()));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return ResultUtils.ok(articleService.findArticleSummaries(ids));
+    }
+
+    @ApiOperation(value = "获取今日精选", notes = "每天随机抽取的精选文章")
+    @AccessLimit(perSecond = 50,timeOut = 500)
+    @Pass
+    @RequestMapping(value = "/getFeaturedArticles", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<ArticleSummaryDTO> getFeaturedArticles() {
+        return ResultUtils.ok(featuredService.findTodayFeatured());
     }
 
-    @ApiOperation(value = "获取文章列表")
+    @ApiOperation(value = "获取热门文章", notes = "按时间衰减的热度排序，category为空时为全站热门，size最多50")
     @AccessLimit(perSecond = 50,timeOut = 500)
     @Pass
-    @PostMapping("/getArticleList")
-    public Result<Article> getArticleList(@RequestParam("page") Integer page,
-                                          @RequestParam(value = "size", required = false, defaultValue = "10") Integer size) {
-        Page<Article> pages = articleService.findAllReviewedArticles(PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
-        return ResultUtils.ok(pages.getContent());
+    @RequestMapping(value = "/getHotArticles", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<ArticleSummaryDTO> getHotArticles(@RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
+                                                    @RequestParam(value = "category", required = false) String category) {
+        return ResultUtils.ok(articleService.findHotArticles(category, size));
+    }
+
+    @ApiOperation(value = "随机发现文章", notes = "从已审核文章中随机返回size篇（最多20篇）")
+    @AccessLimit(perSecond = 50,timeOut = 500)
+    @Pass
+    @RequestMapping(value = "/discoverArticles", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<ArticleSummaryDTO> discoverArticles(@RequestParam(value = "size", required = false, defaultValue = "1") Integer size) {
+        return ResultUtils.ok(featuredService.discover(size));
     }
 
     @ApiOperation(value = "网页端获取文章列表")
     @PostMapping("/getWebArticleList")
-    public Result<Article> getWebArticleList(@RequestParam("page") Integer page,
-                                          @RequestParam(value = "size", required = false, defaultValue = "10") Integer size) {
-        Page<Article> pages = articleService.findAllReviewedArticles(PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
+    public Result<ArticleSummaryDTO> getWebArticleList(@RequestParam("page") Integer page,
+                                                       @RequestParam(value = "size", required = false, defaultValue = "10") Integer size) {
+        Page<ArticleSummaryDTO> pages = articleService.findAllReviewedArticles(PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
         return ResultUtils.ok(pages);
     }
 
@@ -132,71 +274,104 @@ public class ArticleController {
         return ResultUtils.ok(articleService.starArticle(starsDTO));
     }
 
-    @ApiOperation(value = "获取文章点赞者", notes = "获取文章点赞者接口")
+    @ApiOperation(value = "获取文章点赞者", notes = "获取文章点赞者接口  slice为true时返回{list, page, hasNext}")
     @PostMapping("/getArticleStarers")
-    public Result<User> getArticleStarers(@RequestParam("page") Integer page,
+    public Result<UserBriefDTO> getArticleStarers(@RequestParam("page") Integer page,
                                           @RequestParam(value = "size",required = false, defaultValue = "10") Integer size,
-                                          @RequestParam("articleId") int articleId) {
-        Page<Stars> pages = starsService.findStarsByArticleId(articleId, PageRequest.of(page,size, new Sort(Sort.Direction.DESC, "date")));//
-        List<User> users = new ArrayList<>();
-        if(pages.getContent().size() > 0){
-            List<Integer> userIds = new ArrayList<>();
-            pages.getContent().forEach(stars -> userIds.add(stars.getUserId()));
-            users = userService.findUsersByUserIdIn(userIds);
-        }
-        return ResultUtils.ok(users);
+                                          @RequestParam("articleId") int articleId,
+                                          @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice) {
+        //按点赞时间倒序  排序写在查询里
+        Slice<UserBriefDTO> users = userService.findStarersByArticleId(articleId, PageRequest.of(page, size));
+        return ResultUtils.ok(slice ? SlicePage.of(users) : users.getContent());
     }
 
-    @ApiOperation(value = "获取我的点赞文章列表", notes = "获取我的点赞文章列表接口")
+    @ApiOperation(value = "获取我的点赞文章列表", notes = "获取我的点赞文章列表接口  slice为true时返回{list, page, hasNext}")
     @PostMapping("/getMyStarArticles")
-    public Result<Article> getMyStarArticles(@RequestParam("page") Integer page,
+    public Result<ArticleSummaryDTO> getMyStarArticles(@RequestParam("page") Integer page,
                                              @RequestParam(value = "size",required = false, defaultValue = "10") Integer size,
-                                             @RequestParam("userId") int userId) {
+                                             @RequestParam("userId") int userId,
+                                             @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice) {
         User user = userService.findUserByUserId(userId);
         if (StringUtils.isEmpty(user)) {
             return ResultUtils.error(ResultCode.INVALID_USER);
         }
-        Page<Stars> pages = starsService.findStarsByUserId(userId, PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
-        List<Article> articles = new ArrayList<>();
-        if(pages.getContent().size() > 0){
-            List<Integer> articleIds = new ArrayList<>();
-            pages.getContent().forEach(stars -> articleIds.add(stars.getArticleId()));
-            articles = articleService.findArticlesByArticleIdIn(articleIds);
-        }
-        return ResultUtils.ok(articles);
+        //按点赞时间倒序  排序写在查询里
+        Slice<ArticleSummaryDTO> articles = articleService.findStarredByUserId(userId, PageRequest.of(page, size));
+        return ResultUtils.ok(slice ? SlicePage.of(articles) : articles.getContent());
     }
 
-    @ApiOperation(value = "获取我的上传文章列表", notes = "获取我的上传文章列表接口")
+    @ApiOperation(value = "获取我的上传文章列表", notes = "获取我的上传文章列表接口  slice为true时返回{list, page, hasNext}")
     @PostMapping("/getMyContributeArticles")
-    public Result<Article> getMyContributeArticles(@RequestParam("page") Integer page,
+    public Result<ArticleSummaryDTO> getMyContributeArticles(@RequestParam("page") Integer page,
                                                    @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
-                                                   @RequestParam("userId") int userId) {
+                                                   @RequestParam("userId") int userId,
+                                                   @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice) {
         User user = userService.findUserByUserId(userId);
         if (StringUtils.isEmpty(user)) {
             return ResultUtils.error(ResultCode.INVALID_USER);
         }
-        Page<Article> pages = articleService.findAllByContributorId(userId, PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
-        List<Article> articleList = pages.getContent();
+        PageRequest pageRequest = PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date"));
+        if (slice) {
+            return ResultUtils.ok(SlicePage.of(articleService.findSliceByContributorId(userId, pageRequest)));
+        }
+        Page<ArticleSummaryDTO> pages = articleService.findAllByContributorId(userId, pageRequest);
+        List<ArticleSummaryDTO> articleList = pages.getContent();
         return ResultUtils.ok(articleList);
     }
 
     @ApiOperation(value = "是否某用户点赞过某文章", notes = "是否某用户点赞过某文章接口 0未点赞  1已点赞")
     @PostMapping("/getStarStatus")
     public Result getStarStatus(@RequestParam int userId, int articleId){
-        Stars star = starsService.findByUserIdAndArticleId(userId, articleId);
-        if(star != null){
-            return ResultUtils.ok(star.getStatus());
-        }
-        return ResultUtils.ok(0);
+        return ResultUtils.ok(starsService.isStarred(userId, articleId) ? 1 : 0);
+    }
+
+    @ApiOperation(value = "批量查询点赞状态", notes = "articleIds以逗号分隔，最多100个，返回其中该用户点赞过的文章id")
+    @PostMapping("/getStarStatuses")
+    public Result<Integer> getStarStatuses(@RequestParam int userId, @RequestParam("articleIds") List<Integer> articleIds){
+        return ResultUtils.ok(starsService.findStarredArticleIds(userId, articleIds));
     }
 
     @ApiOperation(value = "更新文章浏览量", notes = "更新文章浏览量接口")
     @PostMapping("/viewArticle")
-    public Result<Article> viewArticle(@RequestParam("articleId") int articleId) {
-        articleService.viewArticle(articleId);
+    public Result<Article> viewArticle(@RequestParam("articleId") int articleId, HttpServletRequest request) {
+        articleService.viewArticle(articleId, visitorOf(request));
         return ResultUtils.ok("更新成功");
     }
 
+    @ApiOperation(value = "获取文章独立访客数", notes = "返回今天、最近7天、最近30天的独立访客数（估算值）")
+    @AccessLimit(perSecond = 50,timeOut = 500)
+    @Pass
+    @RequestMapping(value = "/getArticleVisitors", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<VisitorCountDTO> getArticleVisitors(@RequestParam int articleId) {
+        return ResultUtils.ok(articleService.findArticleVisitors(articleId));
+    }
+
+    @ApiOperation(value = "获取全站独立访客数", notes = "返回今天、最近7天、最近30天的独立访客数（估算值）")
+    @AccessLimit(perSecond = 50,timeOut = 500)
+    @Pass
+    @RequestMapping(value = "/getSiteVisitors", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<VisitorCountDTO> getSiteVisitors() {
+        return ResultUtils.ok(articleService.findSiteVisitors());
+    }
+
+    /**
+     * 访客标识  登录用户用用户名，游客用ip+User-Agent的摘要
+     * 用户名只取自shiro已校验过签名的token；ip用getRemoteAddr()，代理头由tomcat只对可信代理处理
+     * 请求头中的值客户端可以随意修改，直接使用会被刷访客数
+     */
+    private static String visitorOf(HttpServletRequest request) {
+        Subject subject = SecurityUtils.getSubject();
+        if (subject.isAuthenticated() && subject.getPrincipal() instanceof String) {
+            String username = JwtUtil.getUsername((String) subject.getPrincipal());
+            if (username != null) {
+                return "u:" + username;
+            }
+        }
+        String ip = request.getRemoteAddr();
+        String agent = String.valueOf(request.getHeader("User-Agent"));
+        return "g:" + DigestUtils.md5DigestAsHex((ip + "|" + agent).getBytes(StandardCharsets.UTF_8));
+    }
+
     @ApiOperation(value = "获取当天文章总浏览量", notes = "获取当天文章总浏览量接口")
     @PostMapping("/getArticleTotalViews")
     public Result<Integer> getArticleTotalViews(){
@@ -209,15 +384,75 @@ public class ArticleController {
         return ResultUtils.ok(articleService.findAllArticleTotals());
     }
 
-    @ApiOperation(value = "获取文章详情对应的MD文本", notes = "获取文章详情接口")
-    @PostMapping("/getArticleDetail")
-    public Result<String> getArticleDetail(@RequestParam int articleId) {
-        //先查询该文章
-        Article article = articleService.findArticleByArticleId(articleId);
-        if (StringUtils.isEmpty(article)) {
+    @ApiOperation(value = "重新统计文章数量", notes = "按数据库重新统计文章数量（管理员）")
+    @RequiresRoles(value = Constans.UserRole.ADMIN)
+    @PostMapping("/recountArticleTotals")
+    public Result<ArticleCountDTO> recountArticleTotals(){
+        return ResultUtils.ok(articleService.recountArticleTotals());
+    }
+
+    @ApiOperation(value = "获取文章详情对应的MD文本", notes = "获取文章详情接口  format=html时返回服务端渲染好的html")
+    @RequestMapping(value = "/getArticleDetail", method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<?> getArticleDetail(@RequestParam int articleId,
+                                              @RequestParam(value = "format", required = false, defaultValue = "md") String format,
+                                              ServletWebRequest request) {
+        //先只查正文版本号  未变化时直接返回304，不再读取和序列化md文本
+        Integer contentVersion = articleService.findContentVersion(articleId);
+        if (contentVersion == null) {
+            return ResponseEntity.ok(ResultUtils.error(ResultCode.NO_FIND_ARTICLE));
+        }
+        boolean html = "html".equalsIgnoreCase(format);
+        String etag = html ? ETagUtils.articleHtmlETag(articleId, contentVersion, ArticleRenderService.RENDER_VERSION)
+                : ETagUtils.articleETag(articleId, contentVersion);
+        if (ETagUtils.checkNotModified(request, etag)) {
+            return ETagUtils.notModified(etag);
+        }
+        //正文单独存放  不需要再加载文章
+        String content = html ? articleRenderService.findHtml(articleId) : articleContentService.findContent(articleId);
+        return ResponseEntity.ok(ResultUtils.ok(content == null ? "" : content));
+    }
+
+    @ApiOperation(value = "获取文章实时计数", notes = "返回点赞数、评论数、浏览数")
+    @AccessLimit(perSecond = 50,timeOut = 500)
+    @Pass
+    @RequestMapping(value = "/getArticleStats", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<ArticleStatsDTO> getArticleStats(@RequestParam int articleId) {
+        ArticleStatsDTO stats = articleService.findArticleStats(articleId);
+        if (stats == null) {
             return ResultUtils.error(ResultCode.NO_FIND_ARTICLE);
         }
-        return ResultUtils.ok(article.getMdContent());
+        return ResultUtils.ok(stats);
+    }
+
+    @ApiOperation(value = "获取文章正文原文", notes = "直接返回md（format=md）或渲染后的html（format=html）文本，不包装成json")
+    @RequestMapping(value = "/getArticleContent", method = {RequestMethod.GET, RequestMethod.POST})
+    public void getArticleContent(@RequestParam int articleId,
+                                  @RequestParam(value = "format", required = false, defaultValue = "md") String format,
+                                  ServletWebRequest request, HttpServletResponse response) throws IOException {
+        boolean html = "html".equalsIgnoreCase(format);
+        String contentHash = articleContentService.findContentHash(articleId);
+        if (contentHash == null) {
+            writeNotFound(response);
+            return;
+        }
+        //正文按内容寻址  md5相同内容一定相同
+        String etag = html ? ETagUtils.contentETag(contentHash + "-" + ArticleRenderService.RENDER_VERSION)
+                : ETagUtils.contentETag(contentHash);
+        //304的状态和ETag已由checkNotModified写入response
+        if (ETagUtils.checkNotModified(request, etag)) {
+            return;
+        }
+        //响应头和正文（或sendfile属性）由ContentStore直接写入response  方法不返回值，spring不会再处理响应
+        boolean written = html ? articleRenderService.writeHtml(articleId, request.getRequest(), response)
+                : articleContentService.writeContent(articleId, request.getRequest(), response);
+        if (!written) {
+            writeNotFound(response);
+        }
+    }
+
+    private static void writeNotFound(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        response.getWriter().write(JSON.toJSONString(ResultUtils.error(ResultCode.NO_FIND_ARTICLE)));
     }
 
     @ApiOperation(value = "文章审核", notes = "文章审核接口")
@@ -1,23 +1,29 @@
 package com.jerry.geekdaily.controller;
 
+import com.jerry.geekdaily.base.CursorPage;
 import com.jerry.geekdaily.base.Result;
 import com.jerry.geekdaily.base.ResultUtils;
+import com.jerry.geekdaily.base.SlicePage;
 import com.jerry.geekdaily.domain.Article;
 import com.jerry.geekdaily.domain.Comment;
 import com.jerry.geekdaily.domain.ESArticle;
 import com.jerry.geekdaily.dto.CommentDTO;
+import com.jerry.geekdaily.dto.CommentThreadDTO;
 import com.jerry.geekdaily.service.ArticleService;
 import com.jerry.geekdaily.service.CommentService;
+import com.jerry.geekdaily.service.StarsService;
 import com.jerry.geekdaily.util.BeanCopyUtil;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -31,14 +37,64 @@ public class CommentController {
     @Autowired
     private CommentService commentService;
 
-    @ApiOperation(value = "获取文章评论列表")
+    @Autowired
+    private StarsService starsService;
+
+    @ApiOperation(value = "获取文章评论列表", notes = "slice为true时返回{list, page, hasNext}")
     @PostMapping("/getArticleComments")
     public Result<Comment> getArticleComments(@RequestParam("page") Integer page,
                                               @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
-                                              @RequestParam("articleId") int articleId) {
-        Page<Comment> pages = commentService.getAllByArticleId(articleId, PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
-        List<Comment> comments = pages.getContent();
-        return ResultUtils.ok(comments);
+                                              @RequestParam("articleId") int articleId,
+                                              @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice) {
+        //只返回列表时也不需要总数  统一用slice查询，第一页从内存读取
+        Slice<Comment> comments = commentService.getSliceByArticleId(articleId, PageRequest.of(page, size, new Sort(Sort.Direction.DESC, "date")));
+        return ResultUtils.ok(slice ? SlicePage.of(comments) : comments.getContent());
+    }
+
+    @ApiOperation(value = "获取文章评论列表（游标分页）", notes = "cursor为空获取第一页，之后传入上一页返回的nextCursor")
+    @RequestMapping(value = "/getArticleCommentsByCursor", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<CursorPage<Comment>> getArticleCommentsByCursor(@RequestParam("articleId") int articleId,
+                                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                                  @RequestParam(value = "size", required = false, defaultValue = "10") Integer size) {
+        return ResultUtils.ok(commentService.getCommentsByCursor(articleId, cursor, size));
+    }
+
+    @ApiOperation(value = "获取文章评论（楼中楼）", notes = "游标分页返回顶层评论，每条带最早的replies条回复，hasMoreReplies为true时通过getCommentReplies继续获取")
+    @RequestMapping(value = "/getCommentThreads", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<CursorPage<CommentThreadDTO>> getCommentThreads(@RequestParam("articleId") int articleId,
+                                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                                  @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
+                                                                  @RequestParam(value = "replies", required = false, defaultValue = "3") Integer replies) {
+        return ResultUtils.ok(commentService.getCommentThreads(articleId, cursor, size, replies));
+    }
+
+    @ApiOperation(value = "获取评论的回复列表", notes = "rootId为顶层评论id，按时间正序游标分页")
+    @RequestMapping(value = "/getCommentReplies", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<CursorPage<Comment>> getCommentReplies(@RequestParam("rootId") int rootId,
+                                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                                         @RequestParam(value = "size", required = false, defaultValue = "10") Integer size) {
+        return ResultUtils.ok(commentService.getRepliesByCursor(rootId, cursor, size));
+    }
+
+    @ApiOperation(value = "获取文章热门评论", notes = "按点赞数倒序，size最多50")
+    @RequestMapping(value = "/getHotComments", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<Comment> getHotComments(@RequestParam("articleId") int articleId,
+                                          @RequestParam(value = "size", required = false, defaultValue = "10") Integer size) {
+        return ResultUtils.ok(commentService.getHotComments(articleId, size));
+    }
+
+    @ApiOperation(value = "评论点赞/取消点赞", notes = "status 0取消点赞  1点赞")
+    @PostMapping("/likeComment")
+    public Result likeComment(@RequestParam("userId") int userId,
+                              @RequestParam("commentId") int commentId,
+                              @RequestParam("status") int status) {
+        return ResultUtils.ok(commentService.likeComment(userId, commentId, status));
+    }
+
+    @ApiOperation(value = "批量查询评论点赞状态", notes = "commentIds以逗号分隔，最多100个，返回其中该用户点赞过的评论id")
+    @PostMapping("/getCommentLikeStatuses")
+    public Result<Integer> getCommentLikeStatuses(@RequestParam int userId, @RequestParam("commentIds") List<Integer> commentIds) {
+        return ResultUtils.ok(starsService.findLikedCommentIds(userId, commentIds));
     }
 
     @ApiOperation(value = "评论文章")
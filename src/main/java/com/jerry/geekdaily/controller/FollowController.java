@@ -2,6 +2,7 @@ package com.jerry.geekdaily.controller;
 
 import com.jerry.geekdaily.base.Result;
 import com.jerry.geekdaily.base.ResultUtils;
+import com.jerry.geekdaily.base.SlicePage;
 import com.jerry.geekdaily.domain.Follow;
 import com.jerry.geekdaily.dto.FollowDTO;
 import com.jerry.geekdaily.repository.FollowRepository;
@@ -16,8 +17,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
@@ -27,7 +28,6 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 import java.util.Date;
-import java.util.List;
 @Api(value = "FollowController", description = "关注相关接口")
 @RestController
 public class FollowController {
@@ -75,22 +75,23 @@ public class FollowController {
         return ResultUtils.error("操作失败!");
     }
 
-    @ApiOperation(value = "获取我关注的对象列表", notes = "获取我关注的对象列表接口")
+    @ApiOperation(value = "获取我关注的对象列表", notes = "获取我关注的对象列表接口  slice为true时返回{list, page, hasNext}")
     @PostMapping("/getMyFollows")
-    public Result<Follow> getMyFollows(@RequestParam int userId, @RequestParam int page, @RequestParam(required = false, defaultValue = "10") int size){
-        Page<Follow> pages = followService.getMyFollows(userId, 1, PageRequest.of(page,size,
-                new Sort(Sort.Direction.DESC, "date")));
-        List<Follow> follows = pages.getContent();
-        return ResultUtils.ok(follows);
+    public Result<Follow> getMyFollows(@RequestParam int userId, @RequestParam int page, @RequestParam(required = false, defaultValue = "10") int size,
+                                       @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice){
+        //Slice只多取一条判断hasNext  不再额外执行count查询
+        Slice<Follow> follows = followService.getMyFollowsSlice(userId, 1, PageRequest.of(page, size,
+                new Sort(Sort.Direction.DESC, "date").and(new Sort(Sort.Direction.DESC, "id"))));
+        return ResultUtils.ok(slice ? SlicePage.of(follows) : follows.getContent());
     }
 
-    @ApiOperation(value = "获取我的关注者列表", notes = "获取我的关注者列表接口")
+    @ApiOperation(value = "获取我的关注者列表", notes = "获取我的关注者列表接口  slice为true时返回{list, page, hasNext}")
     @PostMapping("/getMyFans")
-    public Result<Follow> getMyFans(@RequestParam int userId, @RequestParam int page, @RequestParam(required = false, defaultValue = "10") int size){
-        Page<Follow> pages = followService.getMyFans(userId, 1, PageRequest.of(page,size,
-                new Sort(Sort.Direction.DESC, "date")));
-        List<Follow> fans = pages.getContent();
-        return ResultUtils.ok(fans);
+    public Result<Follow> getMyFans(@RequestParam int userId, @RequestParam int page, @RequestParam(required = false, defaultValue = "10") int size,
+                                    @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice){
+        Slice<Follow> fans = followService.getMyFansSlice(userId, 1, PageRequest.of(page, size,
+                new Sort(Sort.Direction.DESC, "date").and(new Sort(Sort.Direction.DESC, "id"))));
+        return ResultUtils.ok(slice ? SlicePage.of(fans) : fans.getContent());
     }
 
 }
@@ -1,6 +1,7 @@
 package com.jerry.geekdaily.controller;
 
 import com.jerry.geekdaily.domain.Article;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
 import com.jerry.geekdaily.repository.ArticleRepository;
 import com.jerry.geekdaily.service.ArticleService;
 import com.jerry.geekdaily.util.CookieUtils;
@@ -72,7 +73,7 @@ public class HomeController {
         if(request.getParameter("page") != null){
             page = Integer.parseInt(request.getParameter("page"));
         }
-        Page<Article> pages = articleService.findAllArticles(PageRequest.of(page, 15, new Sort(Sort.Direction.DESC, "date")));
+        Page<ArticleSummaryDTO> pages = articleService.findAllArticles(PageRequest.of(page, 15, new Sort(Sort.Direction.DESC, "date")));
         ModelAndView view = new ModelAndView("article");
         view.addObject("articleList", pages.getContent());
         view.addObject("pageCount", pages.getTotalPages());
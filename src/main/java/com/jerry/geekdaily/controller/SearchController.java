@@ -2,8 +2,10 @@ package com.jerry.geekdaily.controller;
 
 import com.jerry.geekdaily.base.Result;
 import com.jerry.geekdaily.base.ResultUtils;
+import com.jerry.geekdaily.base.SlicePage;
 import com.jerry.geekdaily.domain.Article;
 import com.jerry.geekdaily.domain.ESArticle;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
 import com.jerry.geekdaily.service.SearchService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
@@ -35,11 +37,16 @@ public class SearchController {
     @ApiImplicitParams({
             @ApiImplicitParam(name = "page", value = "当前页数", required = true, dataType = "int"),
             @ApiImplicitParam(name = "size", value = "返回的文章数量", required = false, dataType = "int"),
-            @ApiImplicitParam(name = "query", value = "关键字---标签、文章分类、标题、描述", required = true, dataType = "string")
+            @ApiImplicitParam(name = "query", value = "关键字---标签、文章分类、标题、描述", required = true, dataType = "string"),
+            @ApiImplicitParam(name = "slice", value = "为true时返回{list, page, hasNext}，不统计总数", required = false, dataType = "boolean")
     })
     @RequestMapping("/query")
-    public Result<Article> query(@RequestParam Integer page, @RequestParam(required = false, defaultValue = "10")int size, @RequestParam String query) {
-        Page<Article> searchPageResults = searchService.search(page, size, query);
+    public Result<ArticleSummaryDTO> query(@RequestParam Integer page, @RequestParam(required = false, defaultValue = "10")int size, @RequestParam String query,
+                                           @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice) {
+        if (slice) {
+            return ResultUtils.ok(SlicePage.of(searchService.searchSlice(page, size, query)));
+        }
+        Page<ArticleSummaryDTO> searchPageResults = searchService.search(page, size, query);
         return ResultUtils.ok(searchPageResults.getContent());
     }
 
@@ -59,8 +66,8 @@ public class SearchController {
             @ApiImplicitParam(name = "query", value = "关键字---标签、文章分类、标题、描述", required = true, dataType = "string")
     })
     @RequestMapping("/queryWeb")
-    public Result<Article> queryWeb(@RequestParam Integer page, @RequestParam Integer size, @RequestParam String query) {
-        Page<Article> searchPageResults = searchService.search(page, size, query);
+    public Result<ArticleSummaryDTO> queryWeb(@RequestParam Integer page, @RequestParam Integer size, @RequestParam String query) {
+        Page<ArticleSummaryDTO> searchPageResults = searchService.search(page, size, query);
         return ResultUtils.ok(searchPageResults);
 
     }
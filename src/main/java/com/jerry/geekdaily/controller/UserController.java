@@ -6,6 +6,8 @@ import com.jerry.geekdaily.base.ResultCode;
 import com.jerry.geekdaily.base.ResultUtils;
 import com.jerry.geekdaily.config.jwt.JwtUtil;
 import com.jerry.geekdaily.domain.User;
+import com.jerry.geekdaily.dto.PointsRankDTO;
+import com.jerry.geekdaily.service.PointsService;
 import com.jerry.geekdaily.service.UserService;
 import com.jerry.geekdaily.util.CookieUtils;
 import io.swagger.annotations.Api;
@@ -25,6 +27,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PointsService pointsService;
+
     @PostMapping(value = "/register")
     public Result<User> register(@RequestParam String username,
                                 @RequestParam String password) {
@@ -51,6 +56,20 @@ public class UserController {
         }
     }
 
+    @ApiOperation(value = "积分排行", notes = "period为day（今天）、week（本周）、all（总排行），size最多100")
+    @RequestMapping(value = "/getPointsLeaderboard", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<PointsRankDTO> getPointsLeaderboard(@RequestParam(value = "period", required = false, defaultValue = "all") String period,
+                                                      @RequestParam(value = "size", required = false, defaultValue = "20") Integer size) {
+        return ResultUtils.ok(pointsService.findLeaderboard(period, size));
+    }
+
+    @ApiOperation(value = "我的积分排名", notes = "rank从1开始，未上榜时为0")
+    @RequestMapping(value = "/getMyPointsRank", method = {RequestMethod.GET, RequestMethod.POST})
+    public Result<PointsRankDTO> getMyPointsRank(@RequestParam int userId,
+                                                 @RequestParam(value = "period", required = false, defaultValue = "all") String period) {
+        return ResultUtils.ok(pointsService.findUserRank(userId, period));
+    }
+
     @RequestMapping(path = "/401")
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public Result unauthorized() {
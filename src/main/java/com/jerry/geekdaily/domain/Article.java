@@ -12,6 +12,10 @@ import java.io.Serializable;
 import java.util.Date;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_article_review_date", columnList = "reviewStatus,date,articleId"),
+        @Index(name = "idx_article_category_date", columnList = "categoryId,date,articleId")
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 public class Article implements Serializable {
@@ -31,18 +35,14 @@ public class Article implements Serializable {
     @NotEmpty(message="文章链接不能为空！")
     private String link;//源url
 
-    //此字段不返回
-    @JSONField(serialize = false)
-    @Lob @Basic(fetch = FetchType.LAZY)
-    @Column(columnDefinition = "text")
-    private String mdContent;//md风格的文本
-
     private String wrapLink;//外部url
 
     private String contributor;//贡献者
 
     private int contributorId;//贡献者id(user_id)
 
+    //点赞数、评论数、访问量只由ArticleStatsCounter写回  保存实体时不更新这几列
+    @Column(updatable = false)
     private int stars;//点赞数
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -51,8 +51,10 @@ public class Article implements Serializable {
 
     private int unStars;//反赞数
 
+    @Column(updatable = false)
     private int comments;//评论数
 
+    @Column(updatable = false)
     private int views;//访问量
 
     private String tag;//文章标签
@@ -60,10 +62,15 @@ public class Article implements Serializable {
     @NotEmpty(message="分类不能为空！")
     private String category;//文章分类（Android、iOS、Java等）
 
+    private int categoryId;//分类字典id  写入时根据category生成
+
     private int childCategory;//文章子分类(开源库0、资讯1、资料2等)
 
     private int rank;//文章适合等级（0所有人、1初学、2进阶）
 
+    @Column(columnDefinition = "int default 0")
+    private int contentVersion;//正文版本  修改文章时加1，用于生成ETag
+
     //文章创建日期
     @CreatedDate
     @JSONField(format = "yyyy-MM-dd HH:mm:ss")
@@ -0,0 +1,33 @@
+package com.jerry.geekdaily.domain;
+
+import com.alibaba.fastjson.annotation.JSONField;
+import lombok.Data;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 文章分类字典表
+ * 分类名在写入时统一规范化（去空格、转大写），文章表中只保存分类id
+ */
+@Entity
+@Table(uniqueConstraints = {@UniqueConstraint(name = "uk_category_normalized_name", columnNames = "normalizedName")})
+@EntityListeners(AuditingEntityListener.class)
+@Data
+public class ArticleCategory implements Serializable {
+
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    private String name;//首次出现时的分类名（如Android）
+
+    private String normalizedName;//规范化后的分类名（如ANDROID）
+
+    @CreatedDate
+    @JSONField(format = "yyyy-MM-dd HH:mm:ss")
+    private Date date;
+}
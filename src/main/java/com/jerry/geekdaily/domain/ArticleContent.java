@@ -0,0 +1,36 @@
+package com.jerry.geekdaily.domain;
+
+import com.alibaba.fastjson.annotation.JSONField;
+import lombok.Data;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 文章正文（README的md文本）  content列gzip压缩保存，是正文的唯一来源
+ * ContentStore只是按contentHash存放的本地缓存，文件缺失时从content列重建
+ */
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Data
+public class ArticleContent implements Serializable {
+
+    @Id
+    private Integer articleId;//与article表的article_id一致
+
+    @JSONField(serialize = false)
+    @Lob @Basic(fetch = FetchType.LAZY)
+    @Column(columnDefinition = "mediumblob")
+    private byte[] content;//gzip压缩后的md文本
+
+    private int rawLength;//压缩前的字节数
+
+    private String contentHash;//正文的md5  即ContentStore中的key，也用于ETag
+
+    @LastModifiedDate
+    @JSONField(format = "yyyy-MM-dd HH:mm:ss")
+    private Date updateDate;
+}
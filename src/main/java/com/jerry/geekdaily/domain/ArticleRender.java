@@ -0,0 +1,35 @@
+package com.jerry.geekdaily.domain;
+
+import com.alibaba.fastjson.annotation.JSONField;
+import lombok.Data;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 文章正文的渲染记录  渲染后的html按md5保存在ContentStore中，重启后不需要重新渲染
+ * contentHash、renderVersion与当前正文、渲染器版本一致时才有效
+ */
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Data
+public class ArticleRender implements Serializable {
+
+    @Id
+    private Integer articleId;
+
+    private String contentHash;//渲染时正文的md5
+
+    private int renderVersion;//渲染器版本  渲染规则变化后旧数据失效
+
+    private String htmlHash;//渲染结果的md5  即ContentStore中的key
+
+    private long renderMillis;//渲染耗时
+
+    @LastModifiedDate
+    @JSONField(format = "yyyy-MM-dd HH:mm:ss")
+    private Date updateDate;
+}
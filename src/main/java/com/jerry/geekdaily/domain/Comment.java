@@ -5,17 +5,20 @@ import lombok.Data;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import javax.persistence.Entity;
-import javax.persistence.EntityListeners;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
+import javax.persistence.*;
 import java.io.Serializable;
 import java.util.Date;
 
 /**
  * 评论表
+ * 支持楼中楼回复：顶层评论parentId、rootId为0，回复的rootId为所在的顶层评论
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_comment_article_root_date", columnList = "articleId,rootId,date,id"),
+        @Index(name = "idx_comment_root_date", columnList = "rootId,date,id"),
+        @Index(name = "idx_comment_article_likes", columnList = "articleId,likeCount,id")
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 public class Comment implements Serializable {
@@ -39,6 +42,22 @@ public class Comment implements Serializable {
     //评论目标用户id
     private int toUid;
 
+    //回复的评论id  顶层评论为0
+    @Column(columnDefinition = "int default 0")
+    private int parentId;
+
+    //所在的顶层评论id  顶层评论为0
+    @Column(columnDefinition = "int default 0")
+    private int rootId;
+
+    //顶层评论下的回复总数  只由回复时增量更新
+    @Column(columnDefinition = "int default 0", updatable = false)
+    private int replyCount;
+
+    //点赞数  只由点赞/取消点赞时增量更新
+    @Column(columnDefinition = "int default 0", updatable = false)
+    private int likeCount;
+
     //评论日期
     @CreatedDate
     @JSONField(format = "yyyy-MM-dd HH:mm:ss")
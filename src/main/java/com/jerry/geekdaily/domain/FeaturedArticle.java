@@ -0,0 +1,34 @@
+package com.jerry.geekdaily.domain;
+
+import com.alibaba.fastjson.annotation.JSONField;
+import lombok.Data;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 每日精选文章  每天随机抽取，不再修改文章的date
+ */
+@Entity
+@Table(uniqueConstraints = {@UniqueConstraint(name = "uk_featured_day_position", columnNames = {"featureDay", "position"})})
+@EntityListeners(AuditingEntityListener.class)
+@Data
+public class FeaturedArticle implements Serializable {
+
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    private String featureDay;//精选日期（yyyy-MM-dd）
+
+    private int position;//当天的排序
+
+    private int articleId;//文章id
+
+    @CreatedDate
+    @JSONField(format = "yyyy-MM-dd HH:mm:ss")
+    private Date date;
+}
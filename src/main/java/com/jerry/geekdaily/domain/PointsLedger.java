@@ -0,0 +1,53 @@
+package com.jerry.geekdaily.domain;
+
+import com.alibaba.fastjson.annotation.JSONField;
+import lombok.Data;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 积分流水  只追加不修改，user.score为流水的累加
+ * 由PointsService批量写入（jdbc），id使用自增列
+ * onceKey上的唯一索引保证审核通过这类积分重复写入时被忽略
+ */
+@Entity
+@Table(indexes = {@Index(name = "idx_points_ledger_user", columnList = "userId,id")},
+        uniqueConstraints = {@UniqueConstraint(name = "uk_points_ledger_once", columnNames = "onceKey")})
+@EntityListeners(AuditingEntityListener.class)
+@Data
+public class PointsLedger implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private int userId;//获得积分的用户
+
+    private int points;//积分变化  可以为负
+
+    private int reason;//原因  见PointsReasonEnum
+
+    private int articleId;//相关文章
+
+    //只能记一次的积分为 userId:reason:articleId，其余为null（唯一索引允许多个null）
+    private String onceKey;
+
+    @CreatedDate
+    @JSONField(format = "yyyy-MM-dd HH:mm:ss")
+    private Date date;
+
+    public PointsLedger() {
+    }
+
+    public PointsLedger(int userId, int points, int reason, int articleId) {
+        this.userId = userId;
+        this.points = points;
+        this.reason = reason;
+        this.articleId = articleId;
+        this.date = new Date();
+    }
+}
@@ -6,20 +6,22 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import javax.persistence.Entity;
-import javax.persistence.EntityListeners;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
+import javax.persistence.*;
 import java.io.Serializable;
 import java.util.Date;
 
+/**
+ * 点赞记录  同一用户对同一对象、同一类型只有一条，取消点赞只修改status
+ * 记录由insert ignore写入（不带id），id必须是自增列
+ */
 @Entity
+@Table(uniqueConstraints = {@UniqueConstraint(name = "uk_stars_user_article_type", columnNames = {"userId", "articleId", "type"})})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 public class Stars implements Serializable {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
     private int articleId;//文章id
@@ -47,6 +47,8 @@ public class User implements Serializable {
     @JSONField(format = "yyyy-MM-dd HH:mm:ss")
     private Date date;
 
+    //只由积分流水批量累加  保存用户时不更新
+    @Column(updatable = false)
     private int score;//个人积分
 
     private String token;
@@ -0,0 +1,27 @@
+package com.jerry.geekdaily.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 文章数量统计  total为已审核总数
+ */
+@Data
+@NoArgsConstructor
+public class ArticleCountDTO implements Serializable {
+
+    private long total;
+
+    private Map<Integer, Long> statusCounts;//key为审核状态
+
+    private Map<Integer, Long> categoryCounts;//key为分类id  只统计已审核
+
+    public ArticleCountDTO(long total, Map<Integer, Long> statusCounts, Map<Integer, Long> categoryCounts) {
+        this.total = total;
+        this.statusCounts = statusCounts;
+        this.categoryCounts = categoryCounts;
+    }
+}
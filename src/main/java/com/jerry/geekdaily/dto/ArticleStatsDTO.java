@@ -0,0 +1,29 @@
+package com.jerry.geekdaily.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 文章实时计数  从redis读取
+ */
+@Data
+@NoArgsConstructor
+public class ArticleStatsDTO implements Serializable {
+
+    private int articleId;
+
+    private long stars;//点赞数
+
+    private long comments;//评论数
+
+    private long views;//访问量
+
+    public ArticleStatsDTO(int articleId, long stars, long comments, long views) {
+        this.articleId = articleId;
+        this.stars = stars;
+        this.comments = comments;
+        this.views = views;
+    }
+}
@@ -0,0 +1,117 @@
+package com.jerry.geekdaily.dto;
+
+import com.alibaba.fastjson.annotation.JSONField;
+import com.jerry.geekdaily.domain.Article;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 文章列表使用的精简文章信息
+ * 不包含md文本，用户只保留简要信息
+ */
+@Data
+@NoArgsConstructor
+public class ArticleSummaryDTO implements Serializable {
+
+    private Integer articleId;
+
+    private String title;
+
+    private String des;
+
+    private String imgUrl;//上传的图片文件
+
+    private String link;//源url
+
+    private String wrapLink;//外部url
+
+    private String contributor;//贡献者
+
+    private int contributorId;//贡献者id(user_id)
+
+    private UserBriefDTO user;//贡献者简要信息
+
+    private int stars;//点赞数
+
+    private int unStars;//反赞数
+
+    private int comments;//评论数
+
+    private int views;//访问量
+
+    private String tag;//文章标签
+
+    private String category;//文章分类（Android、iOS、Java等）
+
+    private int categoryId;//分类字典id
+
+    private int childCategory;//文章子分类(开源库0、资讯1、资料2等)
+
+    private int rank;//文章适合等级（0所有人、1初学、2进阶）
+
+    @JSONField(format = "yyyy-MM-dd HH:mm:ss")
+    private Date date;
+
+    @JSONField(format = "yyyy-MM-dd HH:mm:ss")
+    private Date updateDate;
+
+    private int reviewStatus;//审核状态  0代表审核审核中 1代表审核成功  -1代表审核失败
+
+    /**
+     * 供JPQL构造器表达式使用  只查询列表需要的列，不加载md文本和完整的User
+     * 参数顺序需与ArticleRepository.SUMMARY_SELECT保持一致
+     */
+    public ArticleSummaryDTO(Integer articleId, String title, String des, String imgUrl, String link, String wrapLink,
+                             String contributor, int contributorId, Integer userId, String userName, String avatar,
+                             int stars, int unStars, int comments, int views, String tag, String category,
+                             int categoryId, int childCategory, int rank, Date date, Date updateDate, int reviewStatus) {
+        this.articleId = articleId;
+        this.title = title;
+        this.des = des;
+        this.imgUrl = imgUrl;
+        this.link = link;
+        this.wrapLink = wrapLink;
+        this.contributor = contributor;
+        this.contributorId = contributorId;
+        this.user = userId == null ? null : new UserBriefDTO(userId, userName, avatar);
+        this.stars = stars;
+        this.unStars = unStars;
+        this.comments = comments;
+        this.views = views;
+        this.tag = tag;
+        this.category = category;
+        this.categoryId = categoryId;
+        this.childCategory = childCategory;
+        this.rank = rank;
+        this.date = date;
+        this.updateDate = updateDate;
+        this.reviewStatus = reviewStatus;
+    }
+
+    public ArticleSummaryDTO(Article article) {
+        this.articleId = article.getArticleId();
+        this.title = article.getTitle();
+        this.des = article.getDes();
+        this.imgUrl = article.getImgUrl();
+        this.link = article.getLink();
+        this.wrapLink = article.getWrapLink();
+        this.contributor = article.getContributor();
+        this.contributorId = article.getContributorId();
+        this.user = article.getUser() == null ? null : new UserBriefDTO(article.getUser());
+        this.stars = article.getStars();
+        this.unStars = article.getUnStars();
+        this.comments = article.getComments();
+        this.views = article.getViews();
+        this.tag = article.getTag();
+        this.category = article.getCategory();
+        this.categoryId = article.getCategoryId();
+        this.childCategory = article.getChildCategory();
+        this.rank = article.getRank();
+        this.date = article.getDate();
+        this.updateDate = article.getUpdateDate();
+        this.reviewStatus = article.getReviewStatus();
+    }
+}
@@ -32,6 +32,9 @@ public class CommentDTO implements Serializable {
     //评论目标用户id
     private int toUid;
 
+    //回复的评论id  为空或0时为顶层评论
+    private Integer parentId;
+
     //评论日期
     @JSONField(format = "yyyy-MM-dd HH:mm:ss")
     private Date date;
@@ -0,0 +1,28 @@
+package com.jerry.geekdaily.dto;
+
+import com.jerry.geekdaily.domain.Comment;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 顶层评论及其最早的几条回复  回复总数见comment.replyCount
+ */
+@Data
+@NoArgsConstructor
+public class CommentThreadDTO implements Serializable {
+
+    private Comment comment;
+
+    private List<Comment> replies;
+
+    private boolean hasMoreReplies;//是否还有更多回复  通过getCommentReplies继续获取
+
+    public CommentThreadDTO(Comment comment, List<Comment> replies) {
+        this.comment = comment;
+        this.replies = replies;
+        this.hasMoreReplies = comment.getReplyCount() > replies.size();
+    }
+}
@@ -0,0 +1,26 @@
+package com.jerry.geekdaily.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 积分排行  rank从1开始，未上榜时为0
+ */
+@Data
+@NoArgsConstructor
+public class PointsRankDTO implements Serializable {
+
+    private long rank;
+
+    private long score;
+
+    private UserBriefDTO user;
+
+    public PointsRankDTO(long rank, long score, UserBriefDTO user) {
+        this.rank = rank;
+        this.score = score;
+        this.user = user;
+    }
+}
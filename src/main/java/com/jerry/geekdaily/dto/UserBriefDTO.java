@@ -0,0 +1,31 @@
+package com.jerry.geekdaily.dto;
+
+import com.jerry.geekdaily.domain.User;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 列表中展示用的用户简要信息  不包含openId、sessionKey等敏感字段
+ */
+@Data
+@NoArgsConstructor
+public class UserBriefDTO implements Serializable {
+
+    private Integer userId;
+
+    private String userName;
+
+    private String avatar;
+
+    public UserBriefDTO(Integer userId, String userName, String avatar) {
+        this.userId = userId;
+        this.userName = userName;
+        this.avatar = avatar;
+    }
+
+    public UserBriefDTO(User user) {
+        this(user.getUserId(), user.getUserName(), user.getAvatar());
+    }
+}
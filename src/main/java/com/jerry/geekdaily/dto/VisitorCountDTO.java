@@ -0,0 +1,27 @@
+package com.jerry.geekdaily.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 独立访客数（HyperLogLog估算，误差约0.81%）
+ * week、month为截至今天的最近7天、30天
+ */
+@Data
+@NoArgsConstructor
+public class VisitorCountDTO implements Serializable {
+
+    private long today;
+
+    private long week;
+
+    private long month;
+
+    public VisitorCountDTO(long today, long week, long month) {
+        this.today = today;
+        this.week = week;
+        this.month = month;
+    }
+}
@@ -0,0 +1,33 @@
+package com.jerry.geekdaily.enums;
+
+public enum PointsReasonEnum {
+
+    ARTICLE_REVIEWED(1, 10, true),//上传的文章审核通过  每篇文章只奖励一次
+    STAR_RECEIVED(2, 2, false),//文章被点赞（取消点赞时扣回）
+    COMMENT_RECEIVED(3, 1, false)//文章被评论
+    ;
+
+    private Integer reason;
+
+    private Integer points;
+
+    private boolean once;//同一用户同一文章只记一次
+
+    PointsReasonEnum(Integer reason, Integer points, boolean once){
+        this.reason = reason;
+        this.points = points;
+        this.once = once;
+    }
+
+    public Integer getReason() {
+        return reason;
+    }
+
+    public Integer getPoints() {
+        return points;
+    }
+
+    public boolean isOnce() {
+        return once;
+    }
+}
@@ -0,0 +1,18 @@
+package com.jerry.geekdaily.enums;
+
+public enum StarTypeEnum {
+
+    ARTICLE_STAR(1),//文章点赞
+    COMMENT_STAR(2)//评论点赞  stars.article_id存放评论id
+    ;
+
+    private Integer starType;
+
+    StarTypeEnum(Integer starType){
+        this.starType = starType;
+    }
+
+    public Integer getStarType() {
+        return starType;
+    }
+}
@@ -0,0 +1,12 @@
+package com.jerry.geekdaily.repository;
+
+import com.jerry.geekdaily.domain.ArticleCategory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ArticleCategoryRepository extends JpaRepository<ArticleCategory, Integer> {
+
+    @Query("select u from ArticleCategory u where u.normalizedName = :normalized_name")
+    ArticleCategory findByNormalizedName(@Param("normalized_name")String normalized_name);
+}
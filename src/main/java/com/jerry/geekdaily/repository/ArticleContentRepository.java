@@ -0,0 +1,33 @@
+package com.jerry.geekdaily.repository;
+
+import com.jerry.geekdaily.domain.ArticleContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ArticleContentRepository extends JpaRepository<ArticleContent, Integer> {
+
+    @Query("select u from ArticleContent u where u.articleId = :article_id")
+    ArticleContent findByArticleId(@Param("article_id")int article_id);
+
+    //只查正文md5  不加载正文
+    @Query("select u.contentHash from ArticleContent u where u.articleId = :article_id")
+    String findContentHash(@Param("article_id")int article_id);
+
+    //只查压缩后的正文  ContentStore中没有文件时用来重建
+    @Query("select u.content from ArticleContent u where u.articleId = :article_id")
+    byte[] findContentBytes(@Param("article_id")int article_id);
+
+    //早期的记录没有md5  读取时补上
+    @Modifying
+    @Transactional
+    @Query("update ArticleContent u set u.contentHash = :content_hash where u.articleId = :article_id")
+    int updateContentHash(@Param("article_id")int article_id, @Param("content_hash")String content_hash);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ArticleContent u where u.articleId = :article_id")
+    void deleteByArticleId(@Param("article_id")int article_id);
+}
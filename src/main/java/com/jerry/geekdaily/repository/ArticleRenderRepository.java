@@ -0,0 +1,19 @@
+package com.jerry.geekdaily.repository;
+
+import com.jerry.geekdaily.domain.ArticleRender;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ArticleRenderRepository extends JpaRepository<ArticleRender, Integer> {
+
+    @Query("select u from ArticleRender u where u.articleId = :article_id")
+    ArticleRender findByArticleId(@Param("article_id")int article_id);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ArticleRender u where u.articleId = :article_id")
+    void deleteByArticleId(@Param("article_id")int article_id);
+}
@@ -1,9 +1,10 @@
 package com.jerry.geekdaily.repository;
 
 import com.jerry.geekdaily.domain.Article;
-import org.springframework.cache.annotation.CachePut;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -15,30 +16,128 @@ import java.util.List;
 
 public interface ArticleRepository extends JpaRepository<Article,Integer> {
 
+    //列表查询统一使用的投影  只取列表需要的列（不含md_content），用户只取id、昵称、头像
+    String SUMMARY_COLUMNS = "select new com.jerry.geekdaily.dto.ArticleSummaryDTO(u.articleId, u.title, u.des, u.imgUrl, u.link, " +
+            "u.wrapLink, u.contributor, u.contributorId, us.userId, us.userName, us.avatar, u.stars, u.unStars, u.comments, " +
+            "u.views, u.tag, u.category, u.categoryId, u.childCategory, u.rank, u.date, u.updateDate, u.reviewStatus) ";
+
+    String SUMMARY_SELECT = SUMMARY_COLUMNS + "from Article u left join u.user us ";
+
     @Query("select count(u) from Article u where u.reviewStatus = 1")
     Integer findAllArticleTotals();
 
-    @Query("select u from Article u where u.reviewStatus = 1")
-    Page<Article> findAllReviewedArticles(Pageable pageable);
+    //计数校正用  [reviewStatus, count]
+    @Query("select u.reviewStatus, count(u) from Article u group by u.reviewStatus")
+    List<Object[]> countGroupByReviewStatus();
+
+    //计数校正用  [categoryId, count]  只统计已审核
+    @Query("select u.categoryId, count(u) from Article u where u.reviewStatus = 1 group by u.categoryId")
+    List<Object[]> countReviewedGroupByCategoryId();
+
+    @Query(value = SUMMARY_SELECT,
+            countQuery = "select count(u) from Article u")
+    Page<ArticleSummaryDTO> findAllArticleSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "where u.reviewStatus = 1",
+            countQuery = "select count(u) from Article u where u.reviewStatus = 1")
+    Page<ArticleSummaryDTO> findAllReviewedArticles(Pageable pageable);
 
     @Query("select u from Article u where u.articleId = :article_id")
     Article findArticleByArticleId(@Param("article_id")int article_id);
 
-    @Query("select u from Article u where u.contributorId = :user_id")
-    Page<Article> findAllByContributorId(@Param("user_id")int user_id, Pageable pageable);
+    //只查正文版本号  用于详情接口的ETag判断，不加载md_content
+    @Query("select u.contentVersion from Article u where u.articleId = :article_id")
+    Integer findContentVersion(@Param("article_id")int article_id);
+
+    //只查贡献者id  同时用于判断文章是否存在
+    @Query("select u.contributorId from Article u where u.articleId = :article_id")
+    Integer findContributorId(@Param("article_id")int article_id);
+
+    //只查计数列  用于初始化redis中的文章计数
+    @Query("select u.stars, u.comments, u.views from Article u where u.articleId = :article_id")
+    List<Object[]> findCounts(@Param("article_id")int article_id);
+
+    //按stars表重新统计点赞数
+    @Modifying
+    @Transactional
+    @Query(value = "update article a set a.stars = (select count(*) from stars s where s.article_id = a.article_id " +
+            "and s.type = 1 and s.status = 1) where a.article_id in (:article_ids)", nativeQuery = true)
+    int recountStars(@Param("article_ids")List<Integer> article_ids);
+
+    @Query(value = SUMMARY_SELECT + "where u.contributorId = :user_id",
+            countQuery = "select count(u) from Article u where u.contributorId = :user_id")
+    Page<ArticleSummaryDTO> findAllByContributorId(@Param("user_id")int user_id, Pageable pageable);
+
+    //Slice版本：多取一条判断hasNext，不执行count查询
+    @Query(SUMMARY_SELECT + "where u.contributorId = :user_id")
+    Slice<ArticleSummaryDTO> findSliceByContributorId(@Param("user_id")int user_id, Pageable pageable);
+
+    //我的点赞文章  stars关联article一次查出，按点赞时间倒序
+    @Query(SUMMARY_COLUMNS + "from Stars s join Article u on u.articleId = s.articleId left join u.user us " +
+            "where s.userId = :user_id and s.type = 1 and s.status = 1 order by s.date desc, s.id desc")
+    Slice<ArticleSummaryDTO> findStarredByUserId(@Param("user_id")int user_id, Pageable pageable);
 
-    @Query("select u from Article u where u.articleId in (:article_ids) order by u.date desc")
-    List<Article> findArticlesByArticleIdIn(@Param("article_ids")List<Integer> article_ids);
+    @Query(SUMMARY_SELECT + "where u.articleId in (:article_ids) order by u.date desc")
+    List<ArticleSummaryDTO> findArticlesByArticleIdIn(@Param("article_ids")List<Integer> article_ids);
 
-    @Query("select u from Article u where upper(u.category) = upper(:category)")
-    Page<Article> findAllByCategoryIgnoreCase(@Param("category")String category, Pageable pageable);
+    //批量获取  和内存快照一样只返回已审核的文章
+    @Query(SUMMARY_SELECT + "where u.reviewStatus = 1 and u.articleId in (:article_ids)")
+    List<ArticleSummaryDTO> findReviewedArticlesByArticleIdIn(@Param("article_ids")List<Integer> article_ids);
 
-    @Query("select u from Article u where u.date between :date and :endDate")
-    Page<Article> randomFindFiveArticles(@Param("date")Date date, @Param("endDate")Date endDate, Pageable pageable);
+    //keyset分页  第一页
+    @Query(SUMMARY_SELECT + "where u.reviewStatus = 1 order by u.date desc, u.articleId desc")
+    List<ArticleSummaryDTO> findFirstReviewedArticles(Pageable pageable);
+
+    //keyset分页  从游标 (date, article_id) 之后继续取  不需要offset和count
+    @Query(SUMMARY_SELECT + "where u.reviewStatus = 1 and (u.date < :date or (u.date = :date and u.articleId < :article_id)) " +
+            "order by u.date desc, u.articleId desc")
+    List<ArticleSummaryDTO> findReviewedArticlesAfter(@Param("date")Date date, @Param("article_id")int article_id, Pageable pageable);
+
+    //分类列表  走(category_id, date, article_id)索引，不再对category做upper()全表扫描
+    @Query(SUMMARY_SELECT + "where u.categoryId = :category_id order by u.date desc, u.articleId desc")
+    List<ArticleSummaryDTO> findAllByCategoryId(@Param("category_id")int category_id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.categoryId = :category_id order by u.date desc, u.articleId desc")
+    Slice<ArticleSummaryDTO> findSliceByCategoryId(@Param("category_id")int category_id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.categoryId = :category_id and (u.date < :date or (u.date = :date and u.articleId < :article_id)) " +
+            "order by u.date desc, u.articleId desc")
+    List<ArticleSummaryDTO> findByCategoryIdAfter(@Param("category_id")int category_id, @Param("date")Date date, @Param("article_id")int article_id, Pageable pageable);
+
+    //还没有分类id的历史文章的分类名
+    @Query("select distinct u.category from Article u where u.categoryId = 0")
+    List<String> findUnresolvedCategories();
+
+    @Modifying
+    @Transactional
+    @Query("update Article u set u.categoryId = :category_id where u.categoryId = 0 and upper(trim(u.category)) = upper(trim(:category))")
+    int updateUnresolvedCategoryId(@Param("category")String category, @Param("category_id")int category_id);
+
+    //正文迁移用  读取article表中遗留的md_content列（实体中已没有该字段）  [article_id, md_content]
+    @Query(value = "select article_id, md_content from article where article_id > :article_id and md_content is not null " +
+            "order by article_id limit :limit", nativeQuery = true)
+    List<Object[]> findLegacyContents(@Param("article_id")int article_id, @Param("limit")int limit);
+
+    //迁移过程中还没迁移的文章  直接读取原列
+    @Query(value = "select md_content from article where article_id = :article_id", nativeQuery = true)
+    String findLegacyContent(@Param("article_id")int article_id);
+
+    //清空原列并增加正文版本号  迁移前返回过空正文的客户端不会再拿到304
+    @Modifying
+    @Transactional
+    @Query(value = "update article set md_content = null, content_version = content_version + 1 " +
+            "where article_id in (:article_ids)", nativeQuery = true)
+    int clearLegacyContents(@Param("article_ids")List<Integer> article_ids);
+
+    @Query(value = SUMMARY_SELECT + "where u.tag like CONCAT('%',:query,'%') " +
+            "or u.category like CONCAT('%',:query,'%') or u.title like CONCAT('%',:query,'%') or u.des like CONCAT('%',:query,'%')",
+            countQuery = "select count(u) from Article u where u.tag like CONCAT('%',:query,'%') " +
+            "or u.category like CONCAT('%',:query,'%') or u.title like CONCAT('%',:query,'%') or u.des like CONCAT('%',:query,'%')")
+    Page<ArticleSummaryDTO> search(@Param("query") String query, Pageable pageable);
 
-    @Query("select u from Article u where u.tag like CONCAT('%',:query,'%') " +
+    @Query(SUMMARY_SELECT + "where u.tag like CONCAT('%',:query,'%') " +
             "or u.category like CONCAT('%',:query,'%') or u.title like CONCAT('%',:query,'%') or u.des like CONCAT('%',:query,'%')")
-    Page<Article> search(@Param("query") String query, Pageable pageable);
+    Slice<ArticleSummaryDTO> searchSlice(@Param("query") String query, Pageable pageable);
 
 //    @Modifying
 //    @Transactional
@@ -3,20 +3,94 @@ package com.jerry.geekdaily.repository;
 import com.jerry.geekdaily.domain.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface CommentRepository extends JpaRepository<Comment, Long> {
+import java.util.Date;
+import java.util.List;
+
+public interface CommentRepository extends JpaRepository<Comment, Long>, CommentRepositoryCustom {
 
     @Query("select u from Comment u where u.articleId = :article_id")
     Page<Comment> getAllByArticleId(@Param("article_id")int article_id, Pageable pageable);
 
+    @Query("select u from Comment u where u.articleId = :article_id")
+    Slice<Comment> getSliceByArticleId(@Param("article_id")int article_id, Pageable pageable);
+
+    @Query("select u from Comment u where u.articleId = :article_id order by u.date desc, u.id desc")
+    List<Comment> findLatestByArticleId(@Param("article_id")int article_id, Pageable pageable);
+
+    //keyset分页  取 (date, id) 之后的评论
+    @Query("select u from Comment u where u.articleId = :article_id and (u.date < :date or (u.date = :date and u.id < :id)) " +
+            "order by u.date desc, u.id desc")
+    List<Comment> findByArticleIdAfter(@Param("article_id")int article_id, @Param("date")Date date,
+                                       @Param("id")int id, Pageable pageable);
+
+    //顶层评论  date倒序、id倒序
+    @Query("select u from Comment u where u.articleId = :article_id and u.rootId = 0 order by u.date desc, u.id desc")
+    List<Comment> findRootsByArticleId(@Param("article_id")int article_id, Pageable pageable);
+
+    @Query("select u from Comment u where u.articleId = :article_id and u.rootId = 0 " +
+            "and (u.date < :date or (u.date = :date and u.id < :id)) order by u.date desc, u.id desc")
+    List<Comment> findRootsByArticleIdAfter(@Param("article_id")int article_id, @Param("date")Date date,
+                                            @Param("id")int id, Pageable pageable);
+
+    //楼中的回复  date正序、id正序，keyset分页
+    @Query("select u from Comment u where u.rootId = :root_id order by u.date, u.id")
+    List<Comment> findRepliesByRootId(@Param("root_id")int root_id, Pageable pageable);
+
+    @Query("select u from Comment u where u.rootId = :root_id and (u.date > :date or (u.date = :date and u.id > :id)) " +
+            "order by u.date, u.id")
+    List<Comment> findRepliesByRootIdAfter(@Param("root_id")int root_id, @Param("date")Date date,
+                                           @Param("id")int id, Pageable pageable);
+
+    //回复时只查父评论所在的文章和楼  不加载整条评论
+    @Query("select u.articleId, u.rootId from Comment u where u.id = :id")
+    List<Object[]> findThreadInfo(@Param("id")int id);
+
+    @Modifying
+    @Transactional
+    @Query("update Comment u set u.replyCount = u.replyCount + 1 where u.id = :id")
+    int incrementReplyCount(@Param("id")int id);
+
+    //点赞时只查评论所在的文章和点赞数
+    @Query("select u.articleId, u.likeCount from Comment u where u.id = :id")
+    List<Object[]> findLikeInfo(@Param("id")int id);
+
+    //点赞数不会减到负数
+    @Modifying
+    @Transactional
+    @Query("update Comment u set u.likeCount = u.likeCount + :delta where u.id = :id and u.likeCount + :delta >= 0")
+    int addLikeCount(@Param("id")int id, @Param("delta")int delta);
+
+    //按stars表重新统计点赞数
+    @Modifying
+    @Transactional
+    @Query(value = "update comment c set c.like_count = (select count(*) from stars s where s.article_id = c.id " +
+            "and s.type = 2 and s.status = 1) where c.id in (:ids)", nativeQuery = true)
+    int recountLikes(@Param("ids")List<Integer> ids);
+
+    @Query("select distinct u.articleId from Comment u where u.id in (:ids)")
+    List<Integer> findArticleIdsByIdIn(@Param("ids")List<Integer> ids);
+
+    //点赞数最多的评论id和点赞数  走(article_id, like_count, id)索引，不扫描文章的全部评论
+    @Query("select u.id, u.likeCount from Comment u where u.articleId = :article_id and u.likeCount > 0 " +
+            "order by u.likeCount desc, u.id desc")
+    List<Object[]> findTopLikeCounts(@Param("article_id")int article_id, Pageable pageable);
+
+    @Query("select u from Comment u where u.id in (:ids)")
+    List<Comment> findByIdIn(@Param("ids")List<Integer> ids);
+
     @Query("select u from Comment u where u.fromUid = :user_id")
     Page<Comment> getAllByFromId(@Param("user_id")int user_id, Pageable pageable);
 
+    @Query("select u from Comment u where u.fromUid = :user_id")
+    Slice<Comment> getSliceByFromId(@Param("user_id")int user_id, Pageable pageable);
+
     @Modifying
     @Transactional
     @Query("delete from Comment u where u.articleId = :article_id")
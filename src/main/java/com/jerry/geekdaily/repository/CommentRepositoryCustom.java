@@ -0,0 +1,14 @@
+package com.jerry.geekdaily.repository;
+
+import com.jerry.geekdaily.domain.Comment;
+
+import java.util.List;
+
+/**
+ * CommentRepository中需要手动拼接sql的查询
+ */
+public interface CommentRepositoryCustom {
+
+    //多个顶层评论各自最早的limit条回复  一次查询取出
+    List<Comment> findFirstRepliesByRootIdIn(List<Integer> rootIds, int limit);
+}
@@ -0,0 +1,43 @@
+package com.jerry.geekdaily.repository;
+
+import com.jerry.geekdaily.domain.Comment;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.Collections;
+import java.util.List;
+
+public class CommentRepositoryImpl implements CommentRepositoryCustom {
+
+    //每个顶层评论一段子查询  各自走(root_id, date, id)索引只读limit行
+    private static final String REPLIES_SQL = "(select * from comment where root_id = ?%d order by date, id limit ?%d)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 用union all拼接每个楼的子查询，代替相关子查询count
+     * 相关子查询对每条回复都要统计前面的回复数，楼越高越慢
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Comment> findFirstRepliesByRootIdIn(List<Integer> rootIds, int limit) {
+        if (rootIds.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < rootIds.size(); i++) {
+            if (i > 0) {
+                sql.append(" union all ");
+            }
+            sql.append(String.format(REPLIES_SQL, i + 2, 1));
+        }
+        Query query = entityManager.createNativeQuery(sql.toString(), Comment.class);
+        query.setParameter(1, limit);
+        for (int i = 0; i < rootIds.size(); i++) {
+            query.setParameter(i + 2, rootIds.get(i));
+        }
+        return query.getResultList();
+    }
+}
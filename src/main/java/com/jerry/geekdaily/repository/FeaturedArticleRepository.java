@@ -0,0 +1,18 @@
+package com.jerry.geekdaily.repository;
+
+import com.jerry.geekdaily.domain.FeaturedArticle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface FeaturedArticleRepository extends JpaRepository<FeaturedArticle, Integer> {
+
+    @Query("select u.articleId from FeaturedArticle u where u.featureDay = :feature_day order by u.position")
+    List<Integer> findArticleIdsByFeatureDay(@Param("feature_day")String feature_day);
+
+    //最近几天精选过的文章  抽样时排除，避免连续几天重复
+    @Query("select distinct u.articleId from FeaturedArticle u where u.featureDay >= :feature_day")
+    List<Integer> findArticleIdsSince(@Param("feature_day")String feature_day);
+}
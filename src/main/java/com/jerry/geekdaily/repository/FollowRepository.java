@@ -3,6 +3,7 @@ package com.jerry.geekdaily.repository;
 import com.jerry.geekdaily.domain.Follow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -12,6 +13,8 @@ public interface FollowRepository extends JpaRepository<Follow, Integer> {
 
     //获取我关注的对象列表
     Page<Follow> findFollowsByFansIdAndStatusLike(int fansId, int status, Pageable pageable);
+    Slice<Follow> findFollowSliceByFansIdAndStatus(int fansId, int status, Pageable pageable);
     //获取我的关注者列表（我的粉丝）
     Page<Follow> findFollowsByUserIdAndStatusLike(int userId, int status, Pageable pageable);
+    Slice<Follow> findFollowSliceByUserIdAndStatus(int userId, int status, Pageable pageable);
 }
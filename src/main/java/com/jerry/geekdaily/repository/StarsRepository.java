@@ -13,20 +13,100 @@ import java.util.List;
 
 public interface StarsRepository extends JpaRepository<Stars,Integer> {
 
-    @Query("select u from Stars u where (u.userId = :user_id) and (u.articleId = :article_id)")
+    String UNIQUE_KEY = "uk_stars_user_article_type";
+
+    /**
+     * 状态不同时才修改  返回1说明状态发生了变化
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update stars set status = :status, update_date = now() " +
+            "where user_id = :user_id and article_id = :article_id and type = :type and status <> :status", nativeQuery = true)
+    int updateStatusIfChanged(@Param("user_id")int user_id, @Param("article_id")int article_id,
+                              @Param("type")int type, @Param("status")int status);
+
+    /**
+     * 记录不存在时插入  已存在（包括并发插入）时由唯一索引忽略，返回0
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert ignore into stars (user_id, article_id, type, status, date, update_date) " +
+            "values (:user_id, :article_id, :type, :status, now(), now())", nativeQuery = true)
+    int insertIgnore(@Param("user_id")int user_id, @Param("article_id")int article_id,
+                     @Param("type")int type, @Param("status")int status);
+
+    //旧版本id由hibernate_sequence生成  表中的id列没有auto_increment
+    @Query(value = "select count(*) from information_schema.columns where table_schema = database() " +
+            "and table_name = 'stars' and column_name = 'id' and extra like '%auto_increment%'", nativeQuery = true)
+    int countAutoIncrementId();
+
+    //没有自增时insert ignore会插入id=0的记录  改成当前最大id+1，避免修改列时冲突
+    @Modifying
+    @Transactional
+    @Query(value = "update stars s join (select max(id) + 1 as next_id from stars) m on 1 = 1 " +
+            "set s.id = m.next_id where s.id = 0", nativeQuery = true)
+    int renumberZeroId();
+
+    @Modifying
+    @Transactional
+    @Query(value = "alter table stars modify id int not null auto_increment", nativeQuery = true)
+    void addAutoIncrementId();
+
+    //有重复点赞记录的文章（type=1）或评论（type=2）  清理重复记录后需要重新统计点赞数
+    @Query(value = "select article_id from stars where type = :type group by user_id, article_id having count(*) > 1", nativeQuery = true)
+    List<Integer> findDuplicatedTargetIds(@Param("type")int type);
+
+    /**
+     * 唯一索引建立之前产生的重复记录  每组只保留一条
+     * 优先保留status=1的记录（和重新统计的点赞数一致），其次保留id最大的
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "delete s1 from stars s1 join stars s2 on s1.user_id = s2.user_id and s1.article_id = s2.article_id " +
+            "and s1.type = s2.type and ((s2.status = 1 and s1.status <> 1) " +
+            "or ((s2.status = 1) = (s1.status = 1) and s1.id < s2.id))", nativeQuery = true)
+    int deleteDuplicates();
+
+    @Query(value = "select count(*) from information_schema.statistics where table_schema = database() " +
+            "and table_name = 'stars' and index_name = '" + UNIQUE_KEY + "'", nativeQuery = true)
+    int countUniqueKey();
+
+    @Modifying
+    @Transactional
+    @Query(value = "alter table stars add unique key " + UNIQUE_KEY + " (user_id, article_id, type)", nativeQuery = true)
+    void addUniqueKey();
+
+    @Query("select u from Stars u where (u.userId = :user_id) and (u.articleId = :article_id) and (u.type = 1)")
     Stars findByUserIdAndArticleId(@Param("user_id")int user_id, @Param("article_id")int article_id);
 
-    @Query("select u from Stars u where (u.articleId = :article_id) and (u.status = 1)")
+    @Query("select u from Stars u where (u.articleId = :article_id) and (u.type = 1) and (u.status = 1)")
     Page<Stars> findStarsByArticleId(@Param("article_id")int article_id, Pageable pageable);
 
-    @Query("select u from Stars u where (u.userId = :user_id) and (u.status = 1)")
+    @Query("select u from Stars u where (u.userId = :user_id) and (u.type = 1) and (u.status = 1)")
     Page<Stars> findStarsByUserId(@Param("user_id")int user_id, Pageable pageable);
 
-    @Query("select u from Stars u where (u.userId = :user_id) and (u.status = 1)")
+    @Query("select u from Stars u where (u.userId = :user_id) and (u.type = 1) and (u.status = 1)")
     List<Stars> findAllByUserId(@Param("user_id")int user_id);
 
+    //只查文章id  用于构建用户的点赞位图
+    @Query("select u.articleId from Stars u where (u.userId = :user_id) and (u.type = 1) and (u.status = 1)")
+    List<Integer> findStarredArticleIds(@Param("user_id")int user_id);
+
+    //target_ids中用户已点赞的id  评论点赞时为评论id
+    @Query("select u.articleId from Stars u where (u.userId = :user_id) and (u.type = :type) and (u.status = 1) " +
+            "and (u.articleId in (:target_ids))")
+    List<Integer> findStarredTargetIds(@Param("user_id")int user_id, @Param("type")int type,
+                                       @Param("target_ids")List<Integer> target_ids);
+
     @Modifying
     @Transactional
-    @Query("delete from Stars u where u.articleId = :article_id")
+    @Query("delete from Stars u where u.articleId = :article_id and u.type = 1")
     void deleteByArticleId(@Param("article_id") int article_id);
+
+    //删除文章下所有评论的点赞  需要在删除评论之前执行
+    @Modifying
+    @Transactional
+    @Query(value = "delete s from stars s join comment c on c.id = s.article_id " +
+            "where s.type = 2 and c.article_id = :article_id", nativeQuery = true)
+    void deleteCommentStarsByArticleId(@Param("article_id") int article_id);
 }
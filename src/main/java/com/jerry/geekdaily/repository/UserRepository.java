@@ -1,6 +1,9 @@
 package com.jerry.geekdaily.repository;
 
 import com.jerry.geekdaily.domain.User;
+import com.jerry.geekdaily.dto.UserBriefDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,6 +19,19 @@ public interface UserRepository extends JpaRepository<User,Integer> {
     @Query("select u from User u where u.userId in (:user_ids)")
     List<User> findUsersByUserIdIn(@Param("user_ids")List<Integer> user_ids);
 
+    //文章点赞者  stars关联user一次查出，按点赞时间倒序
+    @Query("select new com.jerry.geekdaily.dto.UserBriefDTO(u.userId, u.userName, u.avatar) " +
+            "from Stars s join User u on u.userId = s.userId " +
+            "where s.articleId = :article_id and s.type = 1 and s.status = 1 order by s.date desc, s.id desc")
+    Slice<UserBriefDTO> findStarersByArticleId(@Param("article_id")int article_id, Pageable pageable);
+
+    @Query("select new com.jerry.geekdaily.dto.UserBriefDTO(u.userId, u.userName, u.avatar) from User u where u.userId in (:user_ids)")
+    List<UserBriefDTO> findBriefsByUserIdIn(@Param("user_ids")List<Integer> user_ids);
+
+    //有积分的用户  用于重建总积分排行
+    @Query("select u.userId, u.score from User u where u.score <> 0")
+    List<Object[]> findUserScores();
+
     @Query("select u from User u where u.userId = :user_id")
     User findUserByUserId(@Param("user_id")int user_id);
 
@@ -0,0 +1,22 @@
+package com.jerry.geekdaily.service;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+public interface ArticleContentService {
+
+    //保存（覆盖）文章正文  返回正文的md5
+    String saveContent(int articleId, String mdContent);
+
+    //获取文章正文  没有正文时返回null
+    String findContent(int articleId);
+
+    //把正文直接写入response  没有正文时返回false
+    boolean writeContent(int articleId, HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+    //正文的md5  没有正文时返回null
+    String findContentHash(int articleId);
+
+    void deleteContent(int articleId);
+}
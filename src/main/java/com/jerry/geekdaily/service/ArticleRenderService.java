@@ -0,0 +1,19 @@
+package com.jerry.geekdaily.service;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+public interface ArticleRenderService {
+
+    //渲染器版本  渲染规则变化时加1，旧的渲染结果全部失效
+    int RENDER_VERSION = 1;
+
+    //获取文章正文渲染后的html  没有正文时返回null
+    String findHtml(int articleId);
+
+    //把渲染后的html直接写入response  没有正文时返回false
+    boolean writeHtml(int articleId, HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+    void deleteHtml(int articleId);
+}
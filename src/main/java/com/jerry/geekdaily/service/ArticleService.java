@@ -1,45 +1,82 @@
 package com.jerry.geekdaily.service;
 
+import com.jerry.geekdaily.base.CursorPage;
 import com.jerry.geekdaily.domain.Article;
+import com.jerry.geekdaily.dto.ArticleCountDTO;
+import com.jerry.geekdaily.dto.ArticleStatsDTO;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
 import com.jerry.geekdaily.dto.StarsDTO;
 import com.jerry.geekdaily.dto.UpdateArticleDTO;
+import com.jerry.geekdaily.dto.VisitorCountDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.repository.query.Param;
 
-import java.util.Date;
 import java.util.List;
 
 public interface ArticleService {
     Integer findAllArticleTotals();
 
+    ArticleCountDTO recountArticleTotals();
+
     void uploadArticle(Article article);
 
     void updateArticle(UpdateArticleDTO articleDTO);
 
     void deleteArticle(int article_id);
 
-    Page<Article> findAllArticles(Pageable pageable);
+    Page<ArticleSummaryDTO> findAllArticles(Pageable pageable);
+
+    Page<ArticleSummaryDTO> findAllReviewedArticles(Pageable pageable);
 
-    Page<Article> findAllReviewedArticles(Pageable pageable);
+    CursorPage<ArticleSummaryDTO> findReviewedArticlesByCursor(String cursor, int size);
 
     String starArticle(StarsDTO starsDTO);
 
-    void viewArticle(int article_id);
+    //visitor为访客标识  用于统计独立访客
+    void viewArticle(int article_id, String visitor);
+
+    VisitorCountDTO findArticleVisitors(int article_id);
+
+    VisitorCountDTO findSiteVisitors();
 
     void reviewArticle(int article_id, boolean is_pass);
 
     Article findArticleByArticleId(int article_id);
 
-    Page<Article> findAllByContributorId(int user_id, Pageable pageable);
+    //热门文章  category为空时为全站
+    List<ArticleSummaryDTO> findHotArticles(String category, int size);
+
+    //判断文章是否存在  不加载文章
+    boolean existsArticle(int article_id);
+
+    //文章贡献者id  文章不存在时返回null
+    Integer findContributorId(int article_id);
+
+    //文章实时计数（点赞、评论、浏览）  文章不存在返回null
+    ArticleStatsDTO findArticleStats(int article_id);
 
-    List<Article> findArticlesByArticleIdIn(List<Integer> article_ids);
+    Integer findContentVersion(int article_id);
 
-    Page<Article> findAllByCategory(String category, Pageable pageable);
+    Page<ArticleSummaryDTO> findAllByContributorId(int user_id, Pageable pageable);
 
-    Page<Article> randomFindFiveArticles(Date date, Date endDate, Pageable pageable);
+    Slice<ArticleSummaryDTO> findSliceByContributorId(int user_id, Pageable pageable);
+
+    Slice<ArticleSummaryDTO> findStarredByUserId(int user_id, Pageable pageable);
+
+    List<ArticleSummaryDTO> findArticlesByArticleIdIn(List<Integer> article_ids);
+
+    List<ArticleSummaryDTO> findArticleSummaries(List<Integer> article_ids);
+
+    Slice<ArticleSummaryDTO> findAllByCategory(String category, Pageable pageable);
+
+    CursorPage<ArticleSummaryDTO> findAllByCategoryByCursor(String category, String cursor, int size);
 
     void saveArticle(Article article);
 
     int getArticleTotalViews();
+
+    //列表版本号  category_id为null时为全站列表，多个实例一致
+    long getFeedVersion(Integer category_id);
 }
@@ -0,0 +1,12 @@
+package com.jerry.geekdaily.service;
+
+public interface CategoryService {
+
+    //获取分类id  分类不存在时自动加入字典
+    int resolveCategoryId(String category);
+
+    //获取分类id  分类不存在时返回null
+    Integer findCategoryId(String category);
+
+    String normalize(String category);
+}
@@ -1,14 +1,41 @@
 package com.jerry.geekdaily.service;
 
+import com.jerry.geekdaily.base.CursorPage;
 import com.jerry.geekdaily.domain.Comment;
 import com.jerry.geekdaily.dto.CommentDTO;
+import com.jerry.geekdaily.dto.CommentThreadDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
 
 public interface CommentService {
 
     Page<Comment> getAllByArticleId(int article_id, Pageable pageable);
 
+    Slice<Comment> getSliceByArticleId(int article_id, Pageable pageable);
+
+    //keyset分页  cursor为空时获取第一页
+    CursorPage<Comment> getCommentsByCursor(int article_id, String cursor, int size);
+
+    /**
+     * 顶层评论（游标分页）及每条顶层评论最早的replies条回复
+     * 顶层评论一次查询，所有回复再一次查询
+     */
+    CursorPage<CommentThreadDTO> getCommentThreads(int article_id, String cursor, int size, int replies);
+
+    //某条顶层评论下的回复  按时间正序，游标分页
+    CursorPage<Comment> getRepliesByCursor(int root_id, String cursor, int size);
+
+    /**
+     * 评论点赞/取消点赞  点赞记录存在stars表（type为2），评论的点赞数按增量更新
+     */
+    String likeComment(int user_id, int comment_id, int status);
+
+    //文章下点赞数最多的size条评论  点赞数倒序
+    List<Comment> getHotComments(int article_id, int size);
+
     void deleteAllByArticleId(int article_id);
 
     void commentArticle(CommentDTO commentDTO);
@@ -0,0 +1,17 @@
+package com.jerry.geekdaily.service;
+
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+
+import java.util.List;
+
+public interface FeaturedService {
+
+    //生成当天的精选（已生成时不重复生成）
+    void rotate();
+
+    //当天的精选文章
+    List<ArticleSummaryDTO> findTodayFeatured();
+
+    //随机获取size篇已审核文章
+    List<ArticleSummaryDTO> discover(int size);
+}
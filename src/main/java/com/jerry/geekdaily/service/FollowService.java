@@ -3,6 +3,7 @@ package com.jerry.geekdaily.service;
 import com.jerry.geekdaily.domain.Follow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface FollowService {
 
@@ -11,5 +12,8 @@ public interface FollowService {
     Page<Follow> getMyFollows(int fansId, int status, Pageable pageable);
     //获取我的关注者列表（我的粉丝）
     Page<Follow> getMyFans(int userId, int status, Pageable pageable);
+    //不统计总数的版本
+    Slice<Follow> getMyFollowsSlice(int fansId, int status, Pageable pageable);
+    Slice<Follow> getMyFansSlice(int userId, int status, Pageable pageable);
     Follow saveFollow(Follow follow);
 }
@@ -0,0 +1,24 @@
+package com.jerry.geekdaily.service;
+
+import com.jerry.geekdaily.dto.PointsRankDTO;
+import com.jerry.geekdaily.enums.PointsReasonEnum;
+
+import java.util.List;
+
+public interface PointsService {
+
+    //排行周期
+    String PERIOD_DAY = "day";
+    String PERIOD_WEEK = "week";
+    String PERIOD_ALL = "all";
+
+    /**
+     * 记录积分  只放入队列，由后台批量写入，不阻塞请求
+     * times为倍数（取消点赞时为-1）
+     */
+    void award(int user_id, PointsReasonEnum reason, int article_id, int times);
+
+    List<PointsRankDTO> findLeaderboard(String period, int size);
+
+    PointsRankDTO findUserRank(int user_id, String period);
+}
@@ -1,14 +1,17 @@
 package com.jerry.geekdaily.service;
 
-import com.jerry.geekdaily.domain.Article;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
 public interface SearchService {
 
-    Page<Article> search(int page, int size, String key);
+    Page<ArticleSummaryDTO> search(int page, int size, String key);
 
-    List<Article> related(int size, String key);
+    Slice<ArticleSummaryDTO> searchSlice(int page, int size, String key);
+
+    List<ArticleSummaryDTO> related(int size, String key);
 
 }
@@ -18,6 +18,23 @@ public interface StarsService {
 
     void deleteByArticleId(int article_id);
 
+    //删除文章下所有评论的点赞记录
+    void deleteCommentStarsByArticleId(int article_id);
+
     Stars saveStar(Stars stars);
 
+    /**
+     * 修改点赞状态  返回点赞数的变化（1、-1，状态未变化时为0）
+     */
+    int toggleStar(int user_id, int article_id, int type, int status);
+
+    //从内存位图判断用户是否点赞过文章
+    boolean isStarred(int user_id, int article_id);
+
+    //article_ids中用户点赞过的文章id
+    List<Integer> findStarredArticleIds(int user_id, List<Integer> article_ids);
+
+    //comment_ids中用户点赞过的评论id
+    List<Integer> findLikedCommentIds(int user_id, List<Integer> comment_ids);
+
 }
@@ -1,6 +1,9 @@
 package com.jerry.geekdaily.service;
 
 import com.jerry.geekdaily.domain.User;
+import com.jerry.geekdaily.dto.UserBriefDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -10,6 +13,8 @@ public interface UserService {
 
     User findUserByUserId(int user_id);
 
+    Slice<UserBriefDTO> findStarersByArticleId(int article_id, Pageable pageable);
+
     User findUserByOpenId(String open_id);
 
     User login(String username, String password);
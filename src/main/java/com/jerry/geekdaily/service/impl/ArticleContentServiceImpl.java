@@ -0,0 +1,204 @@
+package com.jerry.geekdaily.service.impl;
+
+import com.jerry.geekdaily.domain.ArticleContent;
+import com.jerry.geekdaily.repository.ArticleContentRepository;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import com.jerry.geekdaily.service.ArticleContentService;
+import com.jerry.geekdaily.store.ContentStore;
+import com.jerry.geekdaily.util.GzipUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 正文gzip压缩后保存在article_content.content列中，是正文的唯一来源
+ * ContentStore按md5在本机缓存同样的内容，读取和sendfile输出都走缓存文件；文件缺失（其他实例、重新部署）时从数据库重建
+ */
+@Slf4j
+@Service
+public class ArticleContentServiceImpl implements ArticleContentService {
+
+    //每批迁移的文章数
+    private static final int MIGRATE_BATCH_SIZE = 100;
+
+    private static final String MARKDOWN_TYPE = "text/markdown;charset=UTF-8";
+
+    @Autowired
+    private ArticleContentRepository articleContentRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    //md_content迁移完成之前  article_content中没有的正文还要再查一次原列
+    private volatile boolean migrating = true;
+
+    @Override
+    public String saveContent(int articleId, String mdContent) {
+        String text = mdContent == null ? "" : mdContent;
+        ArticleContent content = toContent(articleId, text);
+        articleContentRepository.save(content);
+        cacheQuietly(text);
+        return content.getContentHash();
+    }
+
+    @Override
+    public String findContent(int articleId) {
+        String contentHash = findContentHash(articleId);
+        if (contentHash == null) {
+            return null;
+        }
+        String content = contentStore.get(ContentStore.MARKDOWN, contentHash);
+        return content != null ? content : restoreFile(articleId);
+    }
+
+    @Override
+    public boolean writeContent(int articleId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String contentHash = findContentHash(articleId);
+        if (contentHash == null) {
+            return false;
+        }
+        if (!contentStore.exists(ContentStore.MARKDOWN, contentHash) && restoreFile(articleId) == null) {
+            return false;
+        }
+        return contentStore.write(ContentStore.MARKDOWN, contentHash, MARKDOWN_TYPE, request, response);
+    }
+
+    /**
+     * 早期的记录只有content列没有md5  读到时补上
+     * 迁移还没完成时，没有记录的文章从article.md_content读取并立即迁移这一篇
+     */
+    @Override
+    public String findContentHash(int articleId) {
+        String contentHash = articleContentRepository.findContentHash(articleId);
+        if (contentHash != null) {
+            return contentHash;
+        }
+        byte[] bytes = articleContentRepository.findContentBytes(articleId);
+        if (bytes == null) {
+            return migrating ? migrateLegacyContent(articleId) : null;
+        }
+        contentHash = DigestUtils.md5DigestAsHex(GzipUtils.decompressToString(bytes).getBytes(StandardCharsets.UTF_8));
+        articleContentRepository.updateContentHash(articleId, contentHash);
+        return contentHash;
+    }
+
+    //本机没有缓存文件时从数据库重建  数据库中也没有时返回null
+    private String restoreFile(int articleId) {
+        byte[] bytes = articleContentRepository.findContentBytes(articleId);
+        if (bytes == null) {
+            return null;
+        }
+        String content = GzipUtils.decompressToString(bytes);
+        cacheQuietly(content);
+        return content;
+    }
+
+    //缓存文件写入失败不影响读写正文
+    private void cacheQuietly(String content) {
+        try {
+            contentStore.put(ContentStore.MARKDOWN, content);
+        } catch (RuntimeException e) {
+            log.error("正文缓存文件写入失败：" + e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteContent(int articleId) {
+        //文件按内容寻址，可能被其他文章共用  这里只删除对应关系
+        articleContentRepository.deleteByArticleId(articleId);
+    }
+
+    /**
+     * 把article表中遗留的md_content分批迁移到article_content  每批的写入和清空原列在同一个事务中
+     * 迁移完成后查询结果为空，重复启动不会重复迁移
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyContents() {
+        List<Object[]> rows;
+        try {
+            rows = articleRepository.findLegacyContents(0, MIGRATE_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            //新建的库没有md_content列
+            log.info("没有需要迁移的文章正文：" + e.getMessage());
+            migrating = false;
+            return;
+        }
+        int total = 0;
+        try {
+            while (!rows.isEmpty()) {
+                List<ArticleContent> contents = new ArrayList<>(rows.size());
+                List<Integer> articleIds = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    int articleId = ((Number) row[0]).intValue();
+                    contents.add(toContent(articleId, String.valueOf(row[1])));
+                    articleIds.add(articleId);
+                }
+                transactionTemplate.execute(status -> {
+                    articleContentRepository.saveAll(contents);
+                    articleRepository.clearLegacyContents(articleIds);
+                    return null;
+                });
+                total += rows.size();
+                rows = articleRepository.findLegacyContents(articleIds.get(articleIds.size() - 1), MIGRATE_BATCH_SIZE);
+            }
+            migrating = false;
+        } catch (RuntimeException e) {
+            //迁移中断时继续从原列兜底读取  下次启动从头继续
+            log.error("文章正文迁移中断：" + e.getMessage());
+        }
+        if (total > 0) {
+            log.info("文章正文迁移完成，共{}篇", total);
+        }
+    }
+
+    //迁移单篇文章  原列也没有正文时返回null
+    private String migrateLegacyContent(int articleId) {
+        String mdContent;
+        try {
+            mdContent = articleRepository.findLegacyContent(articleId);
+        } catch (RuntimeException e) {
+            migrating = false;
+            return null;
+        }
+        if (mdContent == null) {
+            return null;
+        }
+        ArticleContent content = toContent(articleId, mdContent);
+        transactionTemplate.execute(status -> {
+            articleContentRepository.save(content);
+            articleRepository.clearLegacyContents(Collections.singletonList(articleId));
+            return null;
+        });
+        return content.getContentHash();
+    }
+
+    private static ArticleContent toContent(int articleId, String mdContent) {
+        byte[] raw = mdContent.getBytes(StandardCharsets.UTF_8);
+        ArticleContent content = new ArticleContent();
+        content.setArticleId(articleId);
+        content.setContent(GzipUtils.compress(raw));
+        content.setContentHash(DigestUtils.md5DigestAsHex(raw));
+        content.setRawLength(raw.length);
+        return content;
+    }
+}
@@ -0,0 +1,206 @@
+package com.jerry.geekdaily.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jerry.geekdaily.domain.ArticleRender;
+import com.jerry.geekdaily.exception.ValidException;
+import com.jerry.geekdaily.repository.ArticleRenderRepository;
+import com.jerry.geekdaily.service.ArticleContentService;
+import com.jerry.geekdaily.service.ArticleRenderService;
+import com.jerry.geekdaily.store.ContentStore;
+import com.jerry.geekdaily.util.MarkdownUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 文章正文md转html  每个正文版本（contentHash）只渲染一次
+ * 读取顺序：内存LRU -> article_render表记录的ContentStore文件 -> 渲染线程池
+ * 渲染在固定大小的线程池中执行，队列满时直接拒绝，不占用请求线程做cpu密集的解析
+ */
+@Slf4j
+@Service
+public class ArticleRenderServiceImpl implements ArticleRenderService {
+
+    private static final String HTML_TYPE = "text/html;charset=UTF-8";
+
+    private static final int RENDER_THREADS = 2;
+
+    private static final int RENDER_QUEUE_SIZE = 64;
+
+    //等待渲染结果的最长时间
+    private static final long RENDER_WAIT_SECONDS = 10;
+
+    //内存中最多缓存的html字符数
+    private static final long MAX_CACHED_CHARS = 16 * 1024 * 1024;
+
+    @Autowired
+    private ArticleContentService articleContentService;
+
+    @Autowired
+    private ArticleRenderRepository articleRenderRepository;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Cache<Integer, RenderedHtml> htmlCache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_CHARS)
+            .weigher((Integer articleId, RenderedHtml rendered) -> rendered.html.length())
+            .build();
+
+    //正在渲染的文章  同一篇文章并发请求时只渲染一次
+    private final Map<Integer, CompletableFuture<RenderedHtml>> rendering = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor renderExecutor;
+
+    private Timer renderTimer;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        renderExecutor = new ThreadPoolExecutor(RENDER_THREADS, RENDER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(RENDER_QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "markdown-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        renderTimer = Timer.builder("article.render").description("md转html耗时").register(meterRegistry);
+        meterRegistry.gauge("article.render.queue", renderExecutor.getQueue(), BlockingQueue::size);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        renderExecutor.shutdownNow();
+    }
+
+    @Override
+    public String findHtml(int articleId) {
+        String contentHash = articleContentService.findContentHash(articleId);
+        if (contentHash == null) {
+            return null;
+        }
+        RenderedHtml cached = htmlCache.getIfPresent(articleId);
+        if (cached != null && cached.contentHash.equals(contentHash)) {
+            return cached.html;
+        }
+        String htmlHash = findRenderedHash(articleId, contentHash);
+        String html = htmlHash == null ? null : contentStore.get(ContentStore.HTML, htmlHash);
+        if (html != null) {
+            htmlCache.put(articleId, new RenderedHtml(contentHash, htmlHash, html));
+            return html;
+        }
+        return awaitRender(articleId, contentHash).html;
+    }
+
+    @Override
+    public boolean writeHtml(int articleId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String contentHash = articleContentService.findContentHash(articleId);
+        if (contentHash == null) {
+            return false;
+        }
+        String htmlHash = findRenderedHash(articleId, contentHash);
+        if (htmlHash == null || !contentStore.exists(ContentStore.HTML, htmlHash)) {
+            htmlHash = awaitRender(articleId, contentHash).htmlHash;
+        }
+        return contentStore.write(ContentStore.HTML, htmlHash, HTML_TYPE, request, response);
+    }
+
+    @Override
+    public void deleteHtml(int articleId) {
+        htmlCache.invalidate(articleId);
+        articleRenderRepository.deleteByArticleId(articleId);
+    }
+
+    //当前正文版本已经渲染过时返回渲染结果的md5
+    private String findRenderedHash(int articleId, String contentHash) {
+        ArticleRender render = articleRenderRepository.findByArticleId(articleId);
+        if (render != null && contentHash.equals(render.getContentHash()) && render.getRenderVersion() == RENDER_VERSION) {
+            return render.getHtmlHash();
+        }
+        return null;
+    }
+
+    private RenderedHtml awaitRender(int articleId, String contentHash) {
+        CompletableFuture<RenderedHtml> created = new CompletableFuture<>();
+        CompletableFuture<RenderedHtml> future = rendering.putIfAbsent(articleId, created);
+        if (future == null) {
+            future = created;
+            try {
+                renderExecutor.execute(() -> {
+                    try {
+                        created.complete(render(articleId, contentHash));
+                    } catch (Throwable e) {
+                        created.completeExceptionally(e);
+                    } finally {
+                        rendering.remove(articleId, created);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rendering.remove(articleId, created);
+                throw new ValidException("正文渲染繁忙，请稍后重试");
+            }
+        }
+        try {
+            return future.get(RENDER_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new ValidException("正文渲染中，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValidException("正文渲染被中断");
+        } catch (ExecutionException e) {
+            log.error("文章{}渲染失败：{}", articleId, e.getCause().getMessage());
+            throw new ValidException("正文渲染失败");
+        }
+    }
+
+    private RenderedHtml render(int articleId, String contentHash) {
+        String mdContent = articleContentService.findContent(articleId);
+        long start = System.nanoTime();
+        String html = MarkdownUtils.toSafeHtml(mdContent == null ? "" : mdContent);
+        long elapsed = System.nanoTime() - start;
+        renderTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+        ArticleRender render = new ArticleRender();
+        render.setArticleId(articleId);
+        render.setContentHash(contentHash);
+        render.setRenderVersion(RENDER_VERSION);
+        render.setHtmlHash(contentStore.put(ContentStore.HTML, html));
+        render.setRenderMillis(TimeUnit.NANOSECONDS.toMillis(elapsed));
+        articleRenderRepository.save(render);
+
+        RenderedHtml rendered = new RenderedHtml(contentHash, render.getHtmlHash(), html);
+        htmlCache.put(articleId, rendered);
+        return rendered;
+    }
+
+    private static class RenderedHtml {
+
+        private final String contentHash;
+
+        private final String htmlHash;
+
+        private final String html;
+
+        private RenderedHtml(String contentHash, String htmlHash, String html) {
+            this.contentHash = contentHash;
+            this.htmlHash = htmlHash;
+            this.html = html;
+        }
+    }
+}
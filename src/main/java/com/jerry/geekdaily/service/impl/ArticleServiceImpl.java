@@ -1,35 +1,63 @@
 package com.jerry.geekdaily.service.impl;
 
+import com.jerry.geekdaily.base.CursorPage;
+import com.jerry.geekdaily.cache.ArticleCounter;
+import com.jerry.geekdaily.cache.ArticleFeedStore;
+import com.jerry.geekdaily.cache.ArticleStatsCounter;
+import com.jerry.geekdaily.cache.CategoryFeedCache;
+import com.jerry.geekdaily.cache.FeedVersionCounter;
+import com.jerry.geekdaily.cache.HotArticleRanking;
+import com.jerry.geekdaily.cache.ViewCounter;
+import com.jerry.geekdaily.cache.VisitorCounter;
 import com.jerry.geekdaily.config.Constans;
 import com.jerry.geekdaily.domain.Article;
 import com.jerry.geekdaily.domain.ESArticle;
-import com.jerry.geekdaily.domain.Stars;
 import com.jerry.geekdaily.domain.User;
+import com.jerry.geekdaily.dto.ArticleCountDTO;
+import com.jerry.geekdaily.dto.ArticleStatsDTO;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
 import com.jerry.geekdaily.dto.StarsDTO;
 import com.jerry.geekdaily.dto.UpdateArticleDTO;
+import com.jerry.geekdaily.dto.VisitorCountDTO;
 import com.jerry.geekdaily.enums.AdminEnum;
+import com.jerry.geekdaily.enums.PointsReasonEnum;
 import com.jerry.geekdaily.enums.StarStatusEnum;
+import com.jerry.geekdaily.enums.StarTypeEnum;
 import com.jerry.geekdaily.exception.ParamJsonException;
 import com.jerry.geekdaily.exception.ValidException;
 import com.jerry.geekdaily.repository.ArticleRepository;
+import com.jerry.geekdaily.service.ArticleContentService;
+import com.jerry.geekdaily.service.ArticleRenderService;
 import com.jerry.geekdaily.service.ArticleService;
+import com.jerry.geekdaily.service.CategoryService;
 import com.jerry.geekdaily.service.CommentService;
+import com.jerry.geekdaily.service.PointsService;
 import com.jerry.geekdaily.service.StarsService;
 import com.jerry.geekdaily.service.UserService;
 import com.jerry.geekdaily.util.BeanCopyUtil;
+import com.jerry.geekdaily.util.CursorUtils;
 import com.jerry.geekdaily.util.LinkUtils;
 import com.jerry.geekdaily.util.MarkdownUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
@@ -37,6 +65,9 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class ArticleServiceImpl implements ArticleService {
 
+    //批量获取文章时一次最多的id数
+    public static final int MAX_BATCH_SIZE = 50;
+
     @Autowired
     private ArticleRepository articleRepository;
 
@@ -55,9 +86,54 @@ public class ArticleServiceImpl implements ArticleService {
     @Autowired
     private RedisTemplate redisTemplate;
 
+    @Autowired
+    private ArticleFeedStore articleFeedStore;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryFeedCache categoryFeedCache;
+
+    @Autowired
+    private FeedVersionCounter feedVersionCounter;
+
+    @Autowired
+    private ArticleCounter articleCounter;
+
+    @Autowired
+    private ArticleContentService articleContentService;
+
+    @Autowired
+    private ViewCounter viewCounter;
+
+    @Autowired
+    private ArticleStatsCounter articleStatsCounter;
+
+    @Autowired
+    private VisitorCounter visitorCounter;
+
+    @Autowired
+    private HotArticleRanking hotArticleRanking;
+
+    @Autowired
+    private PointsService pointsService;
+
+    @Autowired
+    private ArticleRenderService articleRenderService;
+
+    /**
+     * 已审核文章总数  直接读计数器，不再执行count(*)
+     */
     @Override
     public Integer findAllArticleTotals() {
-        return articleRepository.findAllArticleTotals();
+        return (int) articleCounter.countByStatus(1);
+    }
+
+    @Override
+    public ArticleCountDTO recountArticleTotals() {
+        articleCounter.recount();
+        return new ArticleCountDTO(articleCounter.countByStatus(1), articleCounter.statusCounts(), articleCounter.categoryCounts());
     }
 
     @Override
@@ -65,7 +141,8 @@ public class ArticleServiceImpl implements ArticleService {
         if(!LinkUtils.verifyURL(article.getLink()) || !LinkUtils.verifyURL(article.getImgUrl())){
             throw new ValidException("上传图片或文章链接格式错误");
         }
-        article.setMdContent(MarkdownUtils.getMdContent(article.getLink()));
+        article.setCategoryId(categoryService.resolveCategoryId(article.getCategory()));
+        String mdContent = MarkdownUtils.getMdContent(article.getLink());
         article.setWrapLink(LinkUtils.gererateShortUrl(article.getLink()));
         //判断是否为管理员   若为管理员则直接通过审核
         User user = userService.findUserByUserId(article.getContributorId());
@@ -93,6 +170,15 @@ public class ArticleServiceImpl implements ArticleService {
             throw new ValidException("用户不存在");
         }
         saveArticle(article);
+        //正文单独存放在article_content表
+        articleContentService.saveContent(article.getArticleId(), mdContent);
+        articleFeedStore.upsert(article);
+        categoryFeedCache.evict(article.getCategoryId());
+        feedVersionCounter.bump(article.getCategoryId());
+        articleCounter.move(null, 0, article.getReviewStatus(), article.getCategoryId());
+        if (article.getReviewStatus() == 1) {
+            hotArticleRanking.recordPublish(article.getArticleId());
+        }
     }
 
     @Override
@@ -111,6 +197,9 @@ public class ArticleServiceImpl implements ArticleService {
         if (StringUtils.isEmpty(article)) {
             throw new ValidException("未找到相应文章");
         }
+        //下面会修改审核状态  先记录修改前的状态和分类
+        int oldCategoryId = article.getCategoryId();
+        int oldReviewStatus = article.getReviewStatus();
         //判断是否为管理员   若为管理员则直接通过审核
         User user = userService.findUserByUserId(articleDTO.getContributorId());
         if (null != user) {
@@ -122,7 +211,22 @@ public class ArticleServiceImpl implements ArticleService {
             throw new ValidException("用户不存在");
         }
         BeanCopyUtil.beanCopyWithIngore(articleDTO, article, "contributorId");
+        article.setContentVersion(article.getContentVersion() + 1);
+        article.setCategoryId(categoryService.resolveCategoryId(article.getCategory()));
         saveArticle(article);
+        articleFeedStore.upsert(article);
+        categoryFeedCache.evict(oldCategoryId);
+        categoryFeedCache.evict(article.getCategoryId());
+        feedVersionCounter.bump(oldCategoryId, article.getCategoryId());
+        articleCounter.move(oldReviewStatus, oldCategoryId, article.getReviewStatus(), article.getCategoryId());
+        //离开已审核时从排行中移除  仍然已审核只是换了分类时把热度移到新分类  管理员修改待审核文章时相当于审核通过
+        if (oldReviewStatus == 1 && article.getReviewStatus() != 1) {
+            hotArticleRanking.remove(article.getArticleId(), oldCategoryId);
+        } else if (oldReviewStatus == 1) {
+            hotArticleRanking.moveCategory(article.getArticleId(), oldCategoryId, article.getCategoryId());
+        } else if (article.getReviewStatus() == 1) {
+            hotArticleRanking.recordPublish(article.getArticleId());
+        }
     }
 
     @Override
@@ -132,6 +236,14 @@ public class ArticleServiceImpl implements ArticleService {
             throw new ValidException("未找到相应文章");
         }
         articleRepository.deleteById(article_id);
+        articleFeedStore.remove(article_id);
+        categoryFeedCache.evict(article.getCategoryId());
+        feedVersionCounter.bump(article.getCategoryId());
+        articleCounter.move(article.getReviewStatus(), article.getCategoryId(), null, 0);
+        articleContentService.deleteContent(article_id);
+        articleRenderService.deleteHtml(article_id);
+        articleStatsCounter.remove(article_id);
+        hotArticleRanking.remove(article_id, article.getCategoryId());
         //删除中间表stars中的article_id的所有数据
         starsService.deleteByArticleId(article_id);
         commentService.deleteAllByArticleId(article_id);
@@ -139,58 +251,70 @@ public class ArticleServiceImpl implements ArticleService {
     }
 
     @Override
-    public Page<Article> findAllArticles(Pageable pageable) {
-        return articleRepository.findAll(pageable);
+    public Page<ArticleSummaryDTO> findAllArticles(Pageable pageable) {
+        return withStats(articleRepository.findAllArticleSummaries(pageable));
     }
 
+    /**
+     * 列表按date倒序  优先从内存快照中读取，快照未加载完成时才查询数据库
+     */
     @Override
-    public Page<Article> findAllReviewedArticles(Pageable pageable) {
-        return articleRepository.findAllReviewedArticles(pageable);
+    public Page<ArticleSummaryDTO> findAllReviewedArticles(Pageable pageable) {
+        if (articleFeedStore.isReady()) {
+            List<ArticleSummaryDTO> content = articleFeedStore.page(pageable.getPageNumber(), pageable.getPageSize());
+            return new PageImpl<>(articleStatsCounter.fill(content), pageable, articleFeedStore.size());
+        }
+        return withStats(articleRepository.findAllReviewedArticles(pageable));
+    }
+
+    @Override
+    public CursorPage<ArticleSummaryDTO> findReviewedArticlesByCursor(String cursor, int size) {
+        size = CursorUtils.clampSize(size);
+        CursorUtils.Cursor after = CursorUtils.decode(cursor);
+        List<ArticleSummaryDTO> summaries;
+        //多取一条用来判断是否还有下一页
+        if (articleFeedStore.isReady()) {
+            summaries = after == null
+                    ? articleFeedStore.page(0, size + 1)
+                    : articleFeedStore.after(after.getDate(), after.getId(), size + 1);
+        } else {
+            Pageable limit = PageRequest.of(0, size + 1);
+            summaries = after == null
+                    ? articleRepository.findFirstReviewedArticles(limit)
+                    : articleRepository.findReviewedArticlesAfter(after.getDate(), after.getId(), limit);
+        }
+        return toCursorPage(summaries, size);
     }
 
     @Override
     public String starArticle(StarsDTO starsDTO) {
-        //先查看该用户是否已经点赞，如果没有点赞 则增加一条star记录
-        Article article = findArticleByArticleId(starsDTO.getArticleId());
-        String msg = "操作成功!";
-        if(article == null){
-           throw new ValidException("未找到相应文章");
-        }
-        Stars starts = starsService.findByUserIdAndArticleId(starsDTO.getUserId(), starsDTO.getArticleId());
-        if(starts == null){
-            if(starsDTO.getStatus() == 1){//点赞
-                //不存在   插入点赞,article表中添加star
-                starts = new Stars();
-                BeanCopyUtil.beanCopy(starsDTO, starts);
-                log.info("starts:"+starts.getArticleId());
-                article.setStars(article.getStars()+1);
-                msg = "点赞成功!";
-            }
-        }else {
-            //往article表中添加star/unstar  存在数据,则判断点赞状态
-            if(starts.getStatus() == StarStatusEnum.STAR_STATUS.getStarStatus()){
-                if(starsDTO.getStatus() == 0){//取消点赞
-                    starts.setStatus(0);
-                    article.setStars(article.getStars()-1);
-                    msg = "取消点赞成功!";
-                }
-            }else {//当前未点赞
-                if(starsDTO.getStatus() == 1){//点赞
-                    starts.setStatus(1);
-                    article.setStars(article.getStars()+1);
-                    msg = "点赞成功!";
-                }
-            }
+        int status = starsDTO.getStatus();
+        if (status != StarStatusEnum.STAR_STATUS.getStarStatus() && status != StarStatusEnum.IDLE_STAR_STATUS.getStarStatus()) {
+            throw new ValidException("点赞状态错误");
         }
-        starsService.saveStar(starts);
-        saveArticle(article);
-        return msg;
+        int articleId = starsDTO.getArticleId();
+        if (!existsArticle(articleId)) {
+            throw new ValidException("未找到相应文章");
+        }
+        //只有状态真正变化时才修改点赞数  重复点赞/取消不会重复计数
+        //评论点赞走likeComment  这里固定按文章点赞处理
+        int delta = starsService.toggleStar(starsDTO.getUserId(), articleId, StarTypeEnum.ARTICLE_STAR.getStarType(), status);
+        if (delta == 0) {
+            return "操作成功!";
+        }
+        articleStatsCounter.increment(articleId, ArticleStatsCounter.STARS, delta);
+        hotArticleRanking.recordStar(articleId, delta);
+        //点赞自己的文章不加积分  未审核的文章不在快照中，也不加积分
+        ArticleSummaryDTO summary = articleFeedStore.get(articleId);
+        if (summary != null && summary.getContributorId() != starsDTO.getUserId()) {
+            pointsService.award(summary.getContributorId(), PointsReasonEnum.STAR_RECEIVED, articleId, delta);
+        }
+        return delta > 0 ? "点赞成功!" : "取消点赞成功!";
     }
 
     @Override
-    public void viewArticle(int article_id) {
-        Article article = findArticleByArticleId(article_id);
-        if (StringUtils.isEmpty(article)) {
+    public void viewArticle(int article_id, String visitor) {
+        if (!existsArticle(article_id)) {
             throw new ValidException("未找到相应文章");
         }
         //把当天的阅读数逐个添加到redis中
@@ -204,8 +328,19 @@ public class ArticleServiceImpl implements ArticleService {
             int num = new Random().nextInt(2)+1;
             operations.set(Constans.RedisKey.ARTICLE_TOTAL_VIEWS, views+num);
         }
-        article.setViews(article.getViews() + 1);
-        saveArticle(article);
+        //浏览数先在内存中累加  定时批量写入
+        viewCounter.increment(article_id);
+        visitorCounter.add(article_id, visitor);
+    }
+
+    @Override
+    public VisitorCountDTO findArticleVisitors(int article_id) {
+        return visitorCounter.countArticle(article_id);
+    }
+
+    @Override
+    public VisitorCountDTO findSiteVisitors() {
+        return visitorCounter.countSite();
     }
 
     @Override
@@ -217,8 +352,37 @@ public class ArticleServiceImpl implements ArticleService {
         if (StringUtils.isEmpty(article)) {
             throw new ValidException("未找到相应文章");
         }
+        int oldReviewStatus = article.getReviewStatus();
         article.setReviewStatus(is_pass ? 1 : -1);
         saveArticle(article);
+        articleFeedStore.upsert(article);
+        categoryFeedCache.evict(article.getCategoryId());
+        feedVersionCounter.bump(article.getCategoryId());
+        articleCounter.move(oldReviewStatus, article.getCategoryId(), article.getReviewStatus(), article.getCategoryId());
+        if (!is_pass) {
+            hotArticleRanking.remove(article_id, article.getCategoryId());
+        } else if (oldReviewStatus != 1) {
+            hotArticleRanking.recordPublish(article_id);
+            pointsService.award(article.getContributorId(), PointsReasonEnum.ARTICLE_REVIEWED, article_id, 1);
+        }
+    }
+
+    /**
+     * 热门文章  从排行中取id，再批量读取摘要（已删除的文章会被跳过）
+     */
+    @Override
+    public List<ArticleSummaryDTO> findHotArticles(String category, int size) {
+        if (size <= 0 || size > MAX_BATCH_SIZE) {
+            throw new ValidException("size需在1-" + MAX_BATCH_SIZE + "之间");
+        }
+        Integer categoryId = null;
+        if (!StringUtils.isEmpty(category)) {
+            categoryId = categoryService.findCategoryId(category);
+            if (categoryId == null) {
+                return Collections.emptyList();
+            }
+        }
+        return findArticleSummaries(hotArticleRanking.top(categoryId, size));
     }
 
     @Override
@@ -226,24 +390,136 @@ public class ArticleServiceImpl implements ArticleService {
         return articleRepository.findArticleByArticleId(article_id);
     }
 
+    /**
+     * 已审核的文章在内存快照中  不查询数据库
+     */
+    @Override
+    public boolean existsArticle(int article_id) {
+        return articleFeedStore.get(article_id) != null || articleRepository.existsById(article_id);
+    }
+
     @Override
-    public Page<Article> findAllByContributorId(int user_id, Pageable pageable) {
-        return articleRepository.findAllByContributorId(user_id, pageable);
+    public Integer findContributorId(int article_id) {
+        ArticleSummaryDTO summary = articleFeedStore.get(article_id);
+        return summary != null ? Integer.valueOf(summary.getContributorId()) : articleRepository.findContributorId(article_id);
     }
 
     @Override
-    public List<Article> findArticlesByArticleIdIn(List<Integer> article_ids) {
+    public ArticleStatsDTO findArticleStats(int article_id) {
+        return articleStatsCounter.find(article_id);
+    }
+
+    @Override
+    public Integer findContentVersion(int article_id) {
+        return articleRepository.findContentVersion(article_id);
+    }
+
+    @Override
+    public Page<ArticleSummaryDTO> findAllByContributorId(int user_id, Pageable pageable) {
+        return withStats(articleRepository.findAllByContributorId(user_id, pageable));
+    }
+
+    @Override
+    public Slice<ArticleSummaryDTO> findSliceByContributorId(int user_id, Pageable pageable) {
+        return withStats(articleRepository.findSliceByContributorId(user_id, pageable));
+    }
+
+    @Override
+    public Slice<ArticleSummaryDTO> findStarredByUserId(int user_id, Pageable pageable) {
+        return withStats(articleRepository.findStarredByUserId(user_id, pageable));
+    }
+
+    @Override
+    public List<ArticleSummaryDTO> findArticlesByArticleIdIn(List<Integer> article_ids) {
         return articleRepository.findArticlesByArticleIdIn(article_ids);
     }
 
+    /**
+     * 批量获取文章摘要  按传入id的顺序返回，不存在或未审核的id跳过
+     * 已审核文章从内存快照读取，其余的用一次IN查询补齐
+     */
     @Override
-    public Page<Article> findAllByCategory(String category, Pageable pageable) {
-        return articleRepository.findAllByCategoryIgnoreCase(category, pageable);
+    public List<ArticleSummaryDTO> findArticleSummaries(List<Integer> article_ids) {
+        if (article_ids == null || article_ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Integer> ids = new LinkedHashSet<>(article_ids);
+        ids.remove(null);
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new ValidException("一次最多获取" + MAX_BATCH_SIZE + "篇文章");
+        }
+        Map<Integer, ArticleSummaryDTO> found = new HashMap<>(ids.size() * 2);
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            ArticleSummaryDTO summary = articleFeedStore.isReady() ? articleFeedStore.get(id) : null;
+            if (summary != null) {
+                found.put(id, summary);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            articleRepository.findReviewedArticlesByArticleIdIn(missing).forEach(summary -> found.put(summary.getArticleId(), summary));
+        }
+        List<ArticleSummaryDTO> articles = new ArrayList<>(found.size());
+        for (Integer id : ids) {
+            ArticleSummaryDTO summary = found.get(id);
+            if (summary != null) {
+                articles.add(summary);
+            }
+        }
+        return articleStatsCounter.fill(articles);
     }
 
+    /**
+     * 分类名先转成分类id  前几页从分类内存列表读取，更深的页再按category_id查询数据库
+     */
     @Override
-    public Page<Article> randomFindFiveArticles(Date date, Date endDate, Pageable pageable) {
-        return articleRepository.randomFindFiveArticles(date, endDate, pageable);
+    public Slice<ArticleSummaryDTO> findAllByCategory(String category, Pageable pageable) {
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Integer categoryId = categoryService.findCategoryId(category);
+        if (categoryId == null) {
+            return new SliceImpl<>(Collections.emptyList(), unsorted, false);
+        }
+        Slice<ArticleSummaryDTO> cached = categoryFeedCache.page(categoryId, pageable.getPageNumber(), pageable.getPageSize());
+        if (cached != null) {
+            return withStats(cached);
+        }
+        return withStats(articleRepository.findSliceByCategoryId(categoryId, unsorted));
+    }
+
+    @Override
+    public CursorPage<ArticleSummaryDTO> findAllByCategoryByCursor(String category, String cursor, int size) {
+        size = CursorUtils.clampSize(size);
+        CursorUtils.Cursor after = CursorUtils.decode(cursor);
+        Integer categoryId = categoryService.findCategoryId(category);
+        if (categoryId == null) {
+            return new CursorPage<>(Collections.emptyList(), null);
+        }
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<ArticleSummaryDTO> articles = after == null
+                ? articleRepository.findAllByCategoryId(categoryId, limit)
+                : articleRepository.findByCategoryIdAfter(categoryId, after.getDate(), after.getId(), limit);
+        return toCursorPage(articles, size);
+    }
+
+    //截取当前页  并用最后一条数据生成下一页游标
+    private CursorPage<ArticleSummaryDTO> toCursorPage(List<ArticleSummaryDTO> articles, int size) {
+        if (articles.size() <= size) {
+            return new CursorPage<>(articleStatsCounter.fill(articles), null);
+        }
+        List<ArticleSummaryDTO> content = articles.subList(0, size);
+        ArticleSummaryDTO last = content.get(size - 1);
+        return new CursorPage<>(articleStatsCounter.fill(content), CursorUtils.encode(last.getDate(), last.getArticleId()));
+    }
+
+    //列表中的计数替换为redis中的实时计数
+    private Page<ArticleSummaryDTO> withStats(Page<ArticleSummaryDTO> page) {
+        return new PageImpl<>(articleStatsCounter.fill(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    private Slice<ArticleSummaryDTO> withStats(Slice<ArticleSummaryDTO> slice) {
+        return new SliceImpl<>(articleStatsCounter.fill(slice.getContent()), slice.getPageable(), slice.hasNext());
     }
 
     @Override
@@ -252,6 +528,12 @@ public class ArticleServiceImpl implements ArticleService {
 //        articleSearchRepository.save(new ESArticle(article));
     }
 
+    @Override
+    public long getFeedVersion(Integer categoryId) {
+        //列表中带有实时计数  计数每LIST_REFRESH_MILLIS刷新一次，两部分都只增不减，相加后仍然单调递增
+        return feedVersionCounter.version(categoryId) + System.currentTimeMillis() / ArticleStatsCounter.LIST_REFRESH_MILLIS;
+    }
+
     @Override
     public int getArticleTotalViews() {
         ValueOperations<String, Integer> operations = redisTemplate.opsForValue();
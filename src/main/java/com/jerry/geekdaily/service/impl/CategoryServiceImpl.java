@@ -0,0 +1,104 @@
+package com.jerry.geekdaily.service.impl;
+
+import com.jerry.geekdaily.domain.ArticleCategory;
+import com.jerry.geekdaily.exception.ValidException;
+import com.jerry.geekdaily.repository.ArticleCategoryRepository;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import com.jerry.geekdaily.service.CategoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分类字典  规范化后的分类名 -> 分类id 常驻内存
+ */
+@Slf4j
+@Service
+public class CategoryServiceImpl implements CategoryService {
+
+    @Autowired
+    private ArticleCategoryRepository categoryRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    private final Map<String, Integer> categoryIds = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时加载字典，并给历史文章补上分类id（只处理category_id为0的文章，补完后不会重复执行）
+     * 需要在文章快照加载之前完成
+     */
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        categoryRepository.findAll().forEach(category -> categoryIds.put(category.getNormalizedName(), category.getId()));
+        List<String> categories = articleRepository.findUnresolvedCategories();
+        for (String category : categories) {
+            if (StringUtils.isEmpty(normalize(category))) {
+                continue;
+            }
+            int categoryId = resolveCategoryId(category);
+            int count = articleRepository.updateUnresolvedCategoryId(category, categoryId);
+            log.info("分类[{}]补全分类id:{}，共{}篇文章", category, categoryId, count);
+        }
+    }
+
+    @Override
+    public int resolveCategoryId(String category) {
+        String normalizedName = normalize(category);
+        if (StringUtils.isEmpty(normalizedName)) {
+            throw new ValidException("分类不能为空！");
+        }
+        Integer categoryId = categoryIds.get(normalizedName);
+        if (categoryId != null) {
+            return categoryId;
+        }
+        ArticleCategory articleCategory = categoryRepository.findByNormalizedName(normalizedName);
+        if (articleCategory == null) {
+            articleCategory = new ArticleCategory();
+            articleCategory.setName(category.trim());
+            articleCategory.setNormalizedName(normalizedName);
+            try {
+                articleCategory = categoryRepository.saveAndFlush(articleCategory);
+            } catch (DataIntegrityViolationException e) {
+                //并发插入同一分类  唯一索引冲突后重新查询
+                articleCategory = categoryRepository.findByNormalizedName(normalizedName);
+            }
+        }
+        categoryIds.put(normalizedName, articleCategory.getId());
+        return articleCategory.getId();
+    }
+
+    @Override
+    public Integer findCategoryId(String category) {
+        String normalizedName = normalize(category);
+        if (StringUtils.isEmpty(normalizedName)) {
+            return null;
+        }
+        Integer categoryId = categoryIds.get(normalizedName);
+        if (categoryId == null) {
+            //其他节点新增的分类  本地字典还没有
+            ArticleCategory articleCategory = categoryRepository.findByNormalizedName(normalizedName);
+            if (articleCategory != null) {
+                categoryId = articleCategory.getId();
+                categoryIds.put(normalizedName, categoryId);
+            }
+        }
+        return categoryId;
+    }
+
+    @Override
+    public String normalize(String category) {
+        return category == null ? null : category.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -1,20 +1,42 @@
 package com.jerry.geekdaily.service.impl;
 
+import com.jerry.geekdaily.base.CursorPage;
 import com.jerry.geekdaily.base.ResultUtils;
-import com.jerry.geekdaily.domain.Article;
+import com.jerry.geekdaily.cache.ArticleStatsCounter;
+import com.jerry.geekdaily.cache.CommentFeedCache;
+import com.jerry.geekdaily.cache.HotArticleRanking;
+import com.jerry.geekdaily.cache.HotCommentRanking;
 import com.jerry.geekdaily.domain.Comment;
 import com.jerry.geekdaily.domain.ESArticle;
 import com.jerry.geekdaily.dto.CommentDTO;
+import com.jerry.geekdaily.dto.CommentThreadDTO;
+import com.jerry.geekdaily.enums.PointsReasonEnum;
+import com.jerry.geekdaily.enums.StarStatusEnum;
+import com.jerry.geekdaily.enums.StarTypeEnum;
 import com.jerry.geekdaily.exception.ValidException;
 import com.jerry.geekdaily.repository.CommentRepository;
 import com.jerry.geekdaily.service.ArticleService;
 import com.jerry.geekdaily.service.CommentService;
+import com.jerry.geekdaily.service.PointsService;
+import com.jerry.geekdaily.service.StarsService;
 import com.jerry.geekdaily.util.BeanCopyUtil;
+import com.jerry.geekdaily.util.CursorUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class CommentServiceImpl implements CommentService {
@@ -25,30 +47,236 @@ public class CommentServiceImpl implements CommentService {
     @Autowired
     private ArticleService articleService;
 
+    @Autowired
+    private ArticleStatsCounter articleStatsCounter;
+
+    @Autowired
+    private HotArticleRanking hotArticleRanking;
+
+    @Autowired
+    private PointsService pointsService;
+
+    @Autowired
+    private CommentFeedCache commentFeedCache;
+
+    @Autowired
+    private HotCommentRanking hotCommentRanking;
+
+    @Autowired
+    private StarsService starsService;
+
+    //楼中楼接口每条顶层评论最多带的回复数
+    private static final int MAX_THREAD_REPLIES = 10;
+
     @Override
     public Page<Comment> getAllByArticleId(int articleId, Pageable pageable) {
-        Article article = articleService.findArticleByArticleId(articleId);
-        if (StringUtils.isEmpty(article)) {
+        if (!articleService.existsArticle(articleId)) {
             throw new ValidException("未找到相应文章");
         }
         return commentRepository.getAllByArticleId(articleId, pageable);
     }
 
+    @Override
+    public Slice<Comment> getSliceByArticleId(int articleId, Pageable pageable) {
+        if (!articleService.existsArticle(articleId)) {
+            throw new ValidException("未找到相应文章");
+        }
+        //第一页从内存读取  评论按时间倒序
+        if (pageable.getPageNumber() == 0) {
+            List<Comment> latest = commentFeedCache.first(articleId, pageable.getPageSize());
+            if (latest != null) {
+                boolean hasNext = latest.size() > pageable.getPageSize();
+                return new SliceImpl<>(hasNext ? latest.subList(0, pageable.getPageSize()) : latest, pageable, hasNext);
+            }
+        }
+        return commentRepository.getSliceByArticleId(articleId, pageable);
+    }
+
+    @Override
+    public CursorPage<Comment> getCommentsByCursor(int articleId, String cursor, int size) {
+        if (!articleService.existsArticle(articleId)) {
+            throw new ValidException("未找到相应文章");
+        }
+        size = CursorUtils.clampSize(size);
+        CursorUtils.Cursor after = CursorUtils.decode(cursor);
+        //多取一条用来判断是否还有下一页
+        List<Comment> comments = after == null ? commentFeedCache.first(articleId, size) : null;
+        if (comments == null) {
+            Pageable limit = PageRequest.of(0, size + 1);
+            comments = after == null
+                    ? commentRepository.findLatestByArticleId(articleId, limit)
+                    : commentRepository.findByArticleIdAfter(articleId, after.getDate(), after.getId(), limit);
+        }
+        return toCursorPage(comments, size);
+    }
+
+    @Override
+    public CursorPage<CommentThreadDTO> getCommentThreads(int articleId, String cursor, int size, int replies) {
+        size = CursorUtils.clampSize(size);
+        if (replies < 0 || replies > MAX_THREAD_REPLIES) {
+            throw new ValidException("replies需在0-" + MAX_THREAD_REPLIES + "之间");
+        }
+        if (!articleService.existsArticle(articleId)) {
+            throw new ValidException("未找到相应文章");
+        }
+        CursorUtils.Cursor after = CursorUtils.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        CursorPage<Comment> roots = toCursorPage(after == null
+                ? commentRepository.findRootsByArticleId(articleId, limit)
+                : commentRepository.findRootsByArticleIdAfter(articleId, after.getDate(), after.getId(), limit), size);
+        //没有回复的顶层评论不需要查询
+        List<Integer> rootIds = new ArrayList<>();
+        for (Comment root : roots.getList()) {
+            if (root.getReplyCount() > 0) {
+                rootIds.add(root.getId());
+            }
+        }
+        Map<Integer, List<Comment>> repliesByRoot = new HashMap<>();
+        if (replies > 0 && !rootIds.isEmpty()) {
+            for (Comment reply : commentRepository.findFirstRepliesByRootIdIn(rootIds, replies)) {
+                repliesByRoot.computeIfAbsent(reply.getRootId(), k -> new ArrayList<>()).add(reply);
+            }
+        }
+        List<CommentThreadDTO> threads = new ArrayList<>(roots.getList().size());
+        for (Comment root : roots.getList()) {
+            threads.add(new CommentThreadDTO(root, repliesByRoot.getOrDefault(root.getId(), Collections.emptyList())));
+        }
+        return new CursorPage<>(threads, roots.getNextCursor());
+    }
+
+    @Override
+    public CursorPage<Comment> getRepliesByCursor(int rootId, String cursor, int size) {
+        size = CursorUtils.clampSize(size);
+        CursorUtils.Cursor after = CursorUtils.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        return toCursorPage(after == null
+                ? commentRepository.findRepliesByRootId(rootId, limit)
+                : commentRepository.findRepliesByRootIdAfter(rootId, after.getDate(), after.getId(), limit), size);
+    }
+
+    //截取当前页  并用最后一条数据生成下一页游标
+    private CursorPage<Comment> toCursorPage(List<Comment> comments, int size) {
+        if (comments.size() <= size) {
+            return new CursorPage<>(comments, null);
+        }
+        List<Comment> content = comments.subList(0, size);
+        Comment last = content.get(size - 1);
+        return new CursorPage<>(content, CursorUtils.encode(last.getDate(), last.getId()));
+    }
+
+    /**
+     * 点赞记录和评论点赞数在同一事务中修改  状态没有变化时不修改点赞数
+     * 热门评论和最新评论缓存在事务提交后更新
+     */
+    @Override
+    @Transactional
+    public String likeComment(int userId, int commentId, int status) {
+        if (status != StarStatusEnum.STAR_STATUS.getStarStatus() && status != StarStatusEnum.IDLE_STAR_STATUS.getStarStatus()) {
+            throw new ValidException("点赞状态错误");
+        }
+        List<Object[]> info = commentRepository.findLikeInfo(commentId);
+        if (info.isEmpty()) {
+            throw new ValidException("未找到相应评论");
+        }
+        int articleId = ((Number) info.get(0)[0]).intValue();
+        int delta = starsService.toggleStar(userId, commentId, StarTypeEnum.COMMENT_STAR.getStarType(), status);
+        if (delta == 0) {
+            return "操作成功!";
+        }
+        commentRepository.addLikeCount(commentId, delta);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                //提交后再读点赞数  只在评论还不在热门评论中时使用
+                List<Object[]> latest = commentRepository.findLikeInfo(commentId);
+                int likeCount = latest.isEmpty() ? 0 : ((Number) latest.get(0)[1]).intValue();
+                hotCommentRanking.update(articleId, commentId, delta, likeCount);
+                commentFeedCache.updateLikeCount(articleId, commentId, likeCount);
+            }
+        });
+        return delta > 0 ? "点赞成功!" : "取消点赞成功!";
+    }
+
+    @Override
+    public List<Comment> getHotComments(int articleId, int size) {
+        if (size <= 0 || size > HotCommentRanking.MAX_SIZE) {
+            throw new ValidException("size需在1-" + HotCommentRanking.MAX_SIZE + "之间");
+        }
+        List<Integer> commentIds = hotCommentRanking.top(articleId, size);
+        if (commentIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        //按排行的顺序返回  已删除的评论跳过
+        Map<Integer, Comment> byId = new HashMap<>();
+        for (Comment comment : commentRepository.findByIdIn(commentIds)) {
+            byId.put(comment.getId(), comment);
+        }
+        List<Comment> comments = new ArrayList<>(commentIds.size());
+        for (Integer commentId : commentIds) {
+            Comment comment = byId.get(commentId);
+            if (comment != null) {
+                comments.add(comment);
+            }
+        }
+        return comments;
+    }
+
     @Override
     public void deleteAllByArticleId(int article_id) {
+        starsService.deleteCommentStarsByArticleId(article_id);
         commentRepository.deleteAllByArticleId(article_id);
+        commentFeedCache.evict(article_id);
+        hotCommentRanking.remove(article_id);
     }
 
+    /**
+     * 只查询贡献者id判断文章是否存在，不加载文章；评论在事务提交时插入，不单独flush
+     * 评论数、热度、积分在事务提交后再更新，插入失败时不会多计
+     */
     @Override
+    @Transactional
     public void commentArticle(CommentDTO commentDTO) {
-        Article article = articleService.findArticleByArticleId(commentDTO.getArticleId());
-        if (StringUtils.isEmpty(article)) {
+        int articleId = commentDTO.getArticleId();
+        Integer contributorId = articleService.findContributorId(articleId);
+        if (contributorId == null) {
             throw new ValidException("未找到相应文章");
         }
         Comment comment = new Comment();
         BeanCopyUtil.beanCopy(commentDTO, comment);
-        commentRepository.saveAndFlush(comment);
-        article.setComments(article.getComments() + 1);
-        articleService.saveArticle(article);
+        int parentId = commentDTO.getParentId() == null ? 0 : commentDTO.getParentId();
+        int rootId = 0;
+        if (parentId > 0) {
+            List<Object[]> thread = commentRepository.findThreadInfo(parentId);
+            if (thread.isEmpty() || ((Number) thread.get(0)[0]).intValue() != articleId) {
+                throw new ValidException("回复的评论不存在");
+            }
+            //回复的是顶层评论时rootId就是它自己
+            int parentRootId = ((Number) thread.get(0)[1]).intValue();
+            rootId = parentRootId == 0 ? parentId : parentRootId;
+        }
+        comment.setParentId(parentId);
+        comment.setRootId(rootId);
+        commentRepository.save(comment);
+        if (rootId > 0) {
+            commentRepository.incrementReplyCount(rootId);
+        }
+        boolean reply = rootId > 0;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                //回复会改变顶层评论的回复数  直接让缓存失效
+                if (reply) {
+                    commentFeedCache.evict(articleId);
+                } else {
+                    commentFeedCache.prepend(comment);
+                }
+                articleStatsCounter.increment(articleId, ArticleStatsCounter.COMMENTS, 1);
+                hotArticleRanking.recordComment(articleId);
+                //评论自己的文章不加积分
+                if (!contributorId.equals(commentDTO.getFromUid())) {
+                    pointsService.award(contributorId, PointsReasonEnum.COMMENT_RECEIVED, articleId, 1);
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,101 @@
+package com.jerry.geekdaily.service.impl;
+
+import com.jerry.geekdaily.cache.ArticleFeedStore;
+import com.jerry.geekdaily.cache.ArticleStatsCounter;
+import com.jerry.geekdaily.domain.FeaturedArticle;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import com.jerry.geekdaily.exception.ValidException;
+import com.jerry.geekdaily.repository.FeaturedArticleRepository;
+import com.jerry.geekdaily.service.ArticleService;
+import com.jerry.geekdaily.service.FeaturedService;
+import com.jerry.geekdaily.util.DateUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每日精选  从内存快照中等概率抽取，结果保存在featured_article表
+ * 多实例同时生成时由(feature_day, position)唯一索引保证只保存一份
+ */
+@Slf4j
+@Service
+public class FeaturedServiceImpl implements FeaturedService {
+
+    //每天精选的文章数
+    private static final int FEATURED_SIZE = 5;
+
+    //最近几天精选过的文章不再入选
+    private static final int EXCLUDE_DAYS = 7;
+
+    //随机接口一次最多返回的文章数
+    private static final int MAX_DISCOVER_SIZE = 20;
+
+    @Autowired
+    private FeaturedArticleRepository featuredArticleRepository;
+
+    @Autowired
+    private ArticleFeedStore articleFeedStore;
+
+    @Autowired
+    private ArticleStatsCounter articleStatsCounter;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Override
+    public synchronized void rotate() {
+        String today = DateUtils.getDay(System.currentTimeMillis());
+        if (!featuredArticleRepository.findArticleIdsByFeatureDay(today).isEmpty() || !articleFeedStore.isReady()) {
+            return;
+        }
+        String since = DateUtils.getDay(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(EXCLUDE_DAYS));
+        List<ArticleSummaryDTO> picks = articleFeedStore.sample(FEATURED_SIZE,
+                new HashSet<>(featuredArticleRepository.findArticleIdsSince(since)));
+        List<FeaturedArticle> featured = new ArrayList<>(picks.size());
+        for (int i = 0; i < picks.size(); i++) {
+            FeaturedArticle article = new FeaturedArticle();
+            article.setFeatureDay(today);
+            article.setPosition(i);
+            article.setArticleId(picks.get(i).getArticleId());
+            featured.add(article);
+        }
+        try {
+            featuredArticleRepository.saveAll(featured);
+            log.info("{}精选文章：{}", today, featured.size());
+        } catch (DataIntegrityViolationException e) {
+            //其他实例已经生成
+            log.info("{}精选文章已由其他实例生成", today);
+        }
+    }
+
+    @Override
+    public List<ArticleSummaryDTO> findTodayFeatured() {
+        String today = DateUtils.getDay(System.currentTimeMillis());
+        List<Integer> articleIds = featuredArticleRepository.findArticleIdsByFeatureDay(today);
+        if (articleIds.isEmpty()) {
+            //定时任务还没执行（如当天首次启动）
+            rotate();
+            articleIds = featuredArticleRepository.findArticleIdsByFeatureDay(today);
+        }
+        return articleIds.isEmpty() ? Collections.emptyList() : articleService.findArticleSummaries(articleIds);
+    }
+
+    @Override
+    public List<ArticleSummaryDTO> discover(int size) {
+        if (size <= 0 || size > MAX_DISCOVER_SIZE) {
+            throw new ValidException("size需在1-" + MAX_DISCOVER_SIZE + "之间");
+        }
+        if (size == 1) {
+            ArticleSummaryDTO article = articleFeedStore.random();
+            return article == null ? Collections.emptyList() : articleStatsCounter.fill(Collections.singletonList(article));
+        }
+        return articleStatsCounter.fill(articleFeedStore.sample(size, Collections.emptySet()));
+    }
+}
@@ -6,6 +6,7 @@ import com.jerry.geekdaily.service.FollowService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -29,6 +30,16 @@ public class FollowServiceImpl implements FollowService {
         return followRepository.findFollowsByUserIdAndStatusLike(userId, status, pageable);
     }
 
+    @Override
+    public Slice<Follow> getMyFollowsSlice(int fansId, int status, Pageable pageable) {
+        return followRepository.findFollowSliceByFansIdAndStatus(fansId, status, pageable);
+    }
+
+    @Override
+    public Slice<Follow> getMyFansSlice(int userId, int status, Pageable pageable) {
+        return followRepository.findFollowSliceByUserIdAndStatus(userId, status, pageable);
+    }
+
     @Override
     public Follow saveFollow(Follow follow) {
         return followRepository.saveAndFlush(follow);
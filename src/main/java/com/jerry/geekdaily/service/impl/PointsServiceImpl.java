@@ -0,0 +1,230 @@
+package com.jerry.geekdaily.service.impl;
+
+import com.jerry.geekdaily.config.Constans;
+import com.jerry.geekdaily.domain.PointsLedger;
+import com.jerry.geekdaily.dto.PointsRankDTO;
+import com.jerry.geekdaily.dto.UserBriefDTO;
+import com.jerry.geekdaily.enums.PointsReasonEnum;
+import com.jerry.geekdaily.exception.ValidException;
+import com.jerry.geekdaily.repository.UserRepository;
+import com.jerry.geekdaily.service.PointsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 积分流水和积分排行
+ * 请求线程只把流水放入队列，后台每秒取出一批：
+ * 同一事务内批量插入流水、按用户合并后 score = score + ?，提交后再ZINCRBY到日、周、总排行
+ * 排行是redis zset，取前N名、查询个人排名都是O(log n)
+ */
+@Slf4j
+@Service
+public class PointsServiceImpl implements PointsService {
+
+    private static final int MAX_QUEUE_SIZE = 10000;
+
+    private static final int DRAIN_BATCH_SIZE = 500;
+
+    private static final int MAX_LEADERBOARD_SIZE = 100;
+
+    private static final long DAY_BOARD_KEEP_DAYS = 2;
+
+    private static final long WEEK_BOARD_KEEP_DAYS = 8;
+
+    //onceKey重复的流水被忽略  不计入积分和排行
+    private static final String INSERT_SQL = "insert ignore into points_ledger (user_id, points, reason, article_id, date, once_key) values (?, ?, ?, ?, ?, ?)";
+
+    private static final String SCORE_SQL = "update user set score = score + ? where user_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final BlockingQueue<PointsLedger> queue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+
+    @Override
+    public void award(int user_id, PointsReasonEnum reason, int article_id, int times) {
+        if (times == 0) {
+            return;
+        }
+        PointsLedger ledger = new PointsLedger(user_id, reason.getPoints() * times, reason.getReason(), article_id);
+        if (reason.isOnce()) {
+            ledger.setOnceKey(user_id + ":" + reason.getReason() + ":" + article_id);
+        }
+        if (!queue.offer(ledger)) {
+            log.error("积分队列已满，丢弃积分：user_id={}, reason={}", user_id, reason);
+        }
+    }
+
+    /**
+     * 总排行丢失时（如redis清空）用user.score重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        String key = boardKey(PERIOD_ALL);
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+                return;
+            }
+            List<Object[]> scores = userRepository.findUserScores();
+            if (scores.isEmpty()) {
+                return;
+            }
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+            for (Object[] row : scores) {
+                tuples.add(new DefaultTypedTuple<>(String.valueOf(row[0]), ((Number) row[1]).doubleValue()));
+            }
+            stringRedisTemplate.opsForZSet().add(key, tuples);
+            log.info("积分总排行重建完成，共{}人", tuples.size());
+        } catch (RuntimeException e) {
+            log.error("积分总排行重建失败：" + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelay = 1000, fixedDelay = 1000)
+    public synchronized void drain() {
+        List<PointsLedger> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        while (queue.drainTo(batch, DRAIN_BATCH_SIZE) > 0) {
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                //数据库写入失败  放回队列下次重试（队列满时丢弃）
+                batch.forEach(queue::offer);
+                log.error("积分写入失败：" + e.getMessage());
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        drain();
+    }
+
+    private void write(List<PointsLedger> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (PointsLedger ledger : batch) {
+            rows.add(new Object[]{ledger.getUserId(), ledger.getPoints(), ledger.getReason(), ledger.getArticleId(),
+                    new Timestamp(ledger.getDate().getTime()), ledger.getOnceKey()});
+        }
+        Map<Integer, Long> totals = new HashMap<>();
+        transactionTemplate.execute(status -> {
+            int[] inserted = jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            //只累加真正插入的流水  被忽略的返回0
+            for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i] != 0) {
+                    totals.merge(batch.get(i).getUserId(), (long) batch.get(i).getPoints(), Long::sum);
+                }
+            }
+            List<Object[]> scores = new ArrayList<>(totals.size());
+            totals.forEach((userId, points) -> {
+                if (points != 0) {
+                    scores.add(new Object[]{points, userId});
+                }
+            });
+            if (!scores.isEmpty()) {
+                jdbcTemplate.batchUpdate(SCORE_SQL, scores);
+            }
+            return null;
+        });
+        if (totals.isEmpty()) {
+            return;
+        }
+        //数据库已提交  排行写入失败只记录日志，总排行可以用user.score重建
+        try {
+            String all = boardKey(PERIOD_ALL);
+            String day = boardKey(PERIOD_DAY);
+            String week = boardKey(PERIOD_WEEK);
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                totals.forEach((userId, points) -> {
+                    String member = String.valueOf(userId);
+                    redis.zIncrBy(all, points, member);
+                    redis.zIncrBy(day, points, member);
+                    redis.zIncrBy(week, points, member);
+                });
+                redis.expire(day, TimeUnit.DAYS.toSeconds(DAY_BOARD_KEEP_DAYS));
+                redis.expire(week, TimeUnit.DAYS.toSeconds(WEEK_BOARD_KEEP_DAYS));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("积分排行写入失败：" + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<PointsRankDTO> findLeaderboard(String period, int size) {
+        if (size <= 0 || size > MAX_LEADERBOARD_SIZE) {
+            throw new ValidException("size需在1-" + MAX_LEADERBOARD_SIZE + "之间");
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet().reverseRangeWithScores(boardKey(period), 0, size - 1);
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> userIds = new ArrayList<>(tuples.size());
+        tuples.forEach(tuple -> userIds.add(Integer.valueOf(tuple.getValue())));
+        Map<Integer, UserBriefDTO> users = new HashMap<>();
+        userRepository.findBriefsByUserIdIn(userIds).forEach(user -> users.put(user.getUserId(), user));
+        List<PointsRankDTO> ranks = new ArrayList<>(tuples.size());
+        long rank = 0;
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            rank++;
+            UserBriefDTO user = users.get(Integer.valueOf(tuple.getValue()));
+            if (user != null) {
+                ranks.add(new PointsRankDTO(rank, tuple.getScore().longValue(), user));
+            }
+        }
+        return ranks;
+    }
+
+    @Override
+    public PointsRankDTO findUserRank(int user_id, String period) {
+        String key = boardKey(period);
+        String member = String.valueOf(user_id);
+        Long rank = stringRedisTemplate.opsForZSet().reverseRank(key, member);
+        Double score = stringRedisTemplate.opsForZSet().score(key, member);
+        return new PointsRankDTO(rank == null ? 0 : rank + 1, score == null ? 0 : score.longValue(), null);
+    }
+
+    private static String boardKey(String period) {
+        LocalDate today = LocalDate.now();
+        if (PERIOD_ALL.equals(period)) {
+            return Constans.RedisKey.POINTS_BOARD + PERIOD_ALL;
+        } else if (PERIOD_DAY.equals(period)) {
+            return Constans.RedisKey.POINTS_BOARD + PERIOD_DAY + ":" + today;
+        } else if (PERIOD_WEEK.equals(period)) {
+            return Constans.RedisKey.POINTS_BOARD + PERIOD_WEEK + ":" + today.get(IsoFields.WEEK_BASED_YEAR)
+                    + "-" + today.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+        }
+        throw new ValidException("period只能为day、week、all");
+    }
+}
@@ -1,21 +1,54 @@
 package com.jerry.geekdaily.service.impl;
 
+import com.jerry.geekdaily.cache.ArticleStatsCounter;
+import com.jerry.geekdaily.cache.HotCommentRanking;
+import com.jerry.geekdaily.cache.StarBitmapCache;
 import com.jerry.geekdaily.domain.Stars;
+import com.jerry.geekdaily.enums.StarStatusEnum;
+import com.jerry.geekdaily.enums.StarTypeEnum;
+import com.jerry.geekdaily.exception.ValidException;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import com.jerry.geekdaily.repository.CommentRepository;
 import com.jerry.geekdaily.repository.StarsRepository;
 import com.jerry.geekdaily.service.StarsService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 
+@Slf4j
 @Service
 public class StarsServiceImpl implements StarsService {
 
+    //批量查询点赞状态时一次最多的id数
+    public static final int MAX_STATUS_BATCH_SIZE = 100;
+
     @Autowired
     private StarsRepository starsRepository;
 
+    @Autowired
+    private StarBitmapCache starBitmapCache;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ArticleStatsCounter articleStatsCounter;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private HotCommentRanking hotCommentRanking;
+
     @Override
     public Stars findByUserIdAndArticleId(int user_id, int article_id) {
         return starsRepository.findByUserIdAndArticleId(user_id, article_id);
@@ -41,8 +74,124 @@ public class StarsServiceImpl implements StarsService {
         starsRepository.deleteByArticleId(article_id);
     }
 
+    @Override
+    public void deleteCommentStarsByArticleId(int article_id) {
+        starsRepository.deleteCommentStarsByArticleId(article_id);
+    }
+
     @Override
     public Stars saveStar(Stars stars) {
         return starsRepository.saveAndFlush(stars);
     }
+
+    /**
+     * 先按条件修改状态，没有记录时再insert ignore  最多两条语句，不加载实体
+     * 并发重复点赞时只有一条语句影响行数为1，点赞数不会重复累加
+     */
+    @Override
+    public int toggleStar(int user_id, int article_id, int type, int status) {
+        int delta = status == StarStatusEnum.STAR_STATUS.getStarStatus() ? 1 : -1;
+        boolean changed = starsRepository.updateStatusIfChanged(user_id, article_id, type, status) > 0;
+        //取消点赞时没有记录  不需要插入
+        if (!changed && delta > 0) {
+            changed = starsRepository.insertIgnore(user_id, article_id, type, status) > 0;
+        }
+        if (!changed) {
+            return 0;
+        }
+        if (type == StarTypeEnum.ARTICLE_STAR.getStarType()) {
+            starBitmapCache.update(user_id, article_id, delta > 0);
+        }
+        return delta;
+    }
+
+    @Override
+    public boolean isStarred(int user_id, int article_id) {
+        return starBitmapCache.isStarred(user_id, article_id);
+    }
+
+    @Override
+    public List<Integer> findStarredArticleIds(int user_id, List<Integer> article_ids) {
+        if (article_ids == null || article_ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (article_ids.size() > MAX_STATUS_BATCH_SIZE) {
+            throw new ValidException("一次最多查询" + MAX_STATUS_BATCH_SIZE + "篇文章");
+        }
+        return starBitmapCache.filterStarred(user_id, article_ids);
+    }
+
+    @Override
+    public List<Integer> findLikedCommentIds(int user_id, List<Integer> comment_ids) {
+        if (comment_ids == null || comment_ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (comment_ids.size() > MAX_STATUS_BATCH_SIZE) {
+            throw new ValidException("一次最多查询" + MAX_STATUS_BATCH_SIZE + "条评论");
+        }
+        return starsRepository.findStarredTargetIds(user_id, StarTypeEnum.COMMENT_STAR.getStarType(), comment_ids);
+    }
+
+    /**
+     * ddl-auto不会修改已有的表  启动时补齐点赞表的自增id和唯一索引，已完成的步骤不会重复执行
+     * 没有自增id时insert ignore会丢掉新的点赞  迁移失败时直接启动失败，不能带着这个问题运行
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureSchema() {
+        ensureAutoIncrementId();
+        ensureUniqueKey();
+        if (starsRepository.countAutoIncrementId() == 0 || starsRepository.countUniqueKey() == 0) {
+            throw new IllegalStateException("点赞表缺少自增id或唯一索引" + StarsRepository.UNIQUE_KEY + "，请手动修复后再启动");
+        }
+    }
+
+    private void ensureAutoIncrementId() {
+        if (starsRepository.countAutoIncrementId() > 0) {
+            return;
+        }
+        int renumbered = starsRepository.renumberZeroId();
+        starsRepository.addAutoIncrementId();
+        log.info("点赞表id改为自增列，修正id为0的记录{}条", renumbered);
+    }
+
+    /**
+     * 唯一索引建立之前可能已经有重复记录，ddl-auto无法建立索引
+     * 先清理重复记录再补建索引；重复记录会让点赞数偏大，清理后重新统计涉及的文章
+     */
+    private void ensureUniqueKey() {
+        if (starsRepository.countUniqueKey() > 0) {
+            return;
+        }
+        List<Integer> articleIds = new ArrayList<>(new LinkedHashSet<>(
+                starsRepository.findDuplicatedTargetIds(StarTypeEnum.ARTICLE_STAR.getStarType())));
+        List<Integer> commentIds = new ArrayList<>(new LinkedHashSet<>(
+                starsRepository.findDuplicatedTargetIds(StarTypeEnum.COMMENT_STAR.getStarType())));
+        int count = starsRepository.deleteDuplicates();
+        starsRepository.addUniqueKey();
+        recountStars(articleIds);
+        recountCommentLikes(commentIds);
+        log.info("点赞表唯一索引建立完成，清理重复记录{}条，重新统计{}篇文章、{}条评论", count, articleIds.size(), commentIds.size());
+    }
+
+    private void recountStars(List<Integer> articleIds) {
+        for (int from = 0; from < articleIds.size(); from += MAX_STATUS_BATCH_SIZE) {
+            articleRepository.recountStars(articleIds.subList(from, Math.min(from + MAX_STATUS_BATCH_SIZE, articleIds.size())));
+        }
+        //redis中的计数是写回数据库的来源  需要一起覆盖
+        for (Integer articleId : articleIds) {
+            List<Object[]> counts = articleRepository.findCounts(articleId);
+            if (!counts.isEmpty()) {
+                articleStatsCounter.overwrite(articleId, ArticleStatsCounter.STARS, ((Number) counts.get(0)[0]).longValue());
+            }
+        }
+    }
+
+    private void recountCommentLikes(List<Integer> commentIds) {
+        for (int from = 0; from < commentIds.size(); from += MAX_STATUS_BATCH_SIZE) {
+            List<Integer> batch = commentIds.subList(from, Math.min(from + MAX_STATUS_BATCH_SIZE, commentIds.size()));
+            commentRepository.recountLikes(batch);
+            //热门评论按点赞数排序  删除后下次读取时从数据库重建
+            commentRepository.findArticleIdsByIdIn(batch).forEach(hotCommentRanking::remove);
+        }
+    }
 }
@@ -1,9 +1,12 @@
 package com.jerry.geekdaily.service.impl;
 
 import com.jerry.geekdaily.domain.User;
+import com.jerry.geekdaily.dto.UserBriefDTO;
 import com.jerry.geekdaily.repository.UserRepository;
 import com.jerry.geekdaily.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -24,6 +27,11 @@ public class UserServiceImpl implements UserService {
         return userRepository.findUserByUserId(user_id);
     }
 
+    @Override
+    public Slice<UserBriefDTO> findStarersByArticleId(int article_id, Pageable pageable) {
+        return userRepository.findStarersByArticleId(article_id, pageable);
+    }
+
     @Override
     public User findUserByOpenId(String open_id) {
         return userRepository.findUserByOpenId(open_id);
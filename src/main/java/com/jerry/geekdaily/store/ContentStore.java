@@ -0,0 +1,33 @@
+package com.jerry.geekdaily.store;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 按内容寻址的正文存储  key为文本的md5，同一内容只保存一份，写入后不再修改
+ * 内容统一以gzip压缩保存
+ * 只作为缓存使用  正文以数据库为准，文件缺失时由调用方重新put
+ */
+public interface ContentStore {
+
+    String MARKDOWN = "md";
+
+    String HTML = "html";
+
+    //保存文本  返回内容的md5（已存在时不重复写入）
+    String put(String kind, String text);
+
+    boolean exists(String kind, String hash);
+
+    //读取文本  不存在时返回null
+    String get(String kind, String hash);
+
+    /**
+     * 把内容直接写入response  客户端支持gzip时直接发送压缩文件，不经过堆内存
+     * HEAD请求只设置响应头，不读取文件
+     * 不存在时返回false
+     */
+    boolean write(String kind, String hash, String contentType,
+                  HttpServletRequest request, HttpServletResponse response) throws IOException;
+}
@@ -0,0 +1,138 @@
+package com.jerry.geekdaily.store;
+
+import com.jerry.geekdaily.util.GzipUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 本地文件实现  路径为 {dir}/{kind}/{hash前两位}/{hash}.gz
+ * 目录只在本机，多实例或重新部署后文件可能不存在，调用方需要能从数据库重建
+ * 先写临时文件再原子改名，读到的文件一定是完整的
+ * 输出时优先使用tomcat的sendfile，不支持时用FileChannel.transferTo
+ */
+@Slf4j
+@Component
+public class LocalFileContentStore implements ContentStore {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Path root;
+
+    public LocalFileContentStore(@Value("${geekdaily.content-store.dir:./data/content}") String dir) {
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String put(String kind, String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        String hash = DigestUtils.md5DigestAsHex(raw);
+        Path path = path(kind, hash);
+        if (Files.exists(path)) {
+            return hash;
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), hash, ".tmp");
+            try {
+                Files.write(temp, GzipUtils.compress(raw));
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                //并发写入同一内容  内容相同，保留已有文件
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("正文写入失败：" + path, e);
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean exists(String kind, String hash) {
+        return hash != null && Files.exists(path(kind, hash));
+    }
+
+    @Override
+    public String get(String kind, String hash) {
+        if (!exists(kind, hash)) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path(kind, hash)))) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("正文读取失败：" + hash, e);
+        }
+    }
+
+    @Override
+    public boolean write(String kind, String hash, String contentType,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!exists(kind, hash)) {
+            return false;
+        }
+        Path path = path(kind, hash);
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        boolean head = HttpMethod.HEAD.matches(request.getMethod());
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip")) {
+            if (head) {
+                return true;
+            }
+            //不支持gzip的客户端  边解压边输出
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+                StreamUtils.copy(in, response.getOutputStream());
+            }
+            return true;
+        }
+        long length = Files.size(path);
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLengthLong(length);
+        //HEAD请求只需要响应头
+        if (head) {
+            return true;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            //交给tomcat在请求结束后用sendfile发送  数据不进入jvm
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return true;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, target);
+            }
+        }
+        out.flush();
+        return true;
+    }
+
+    private Path path(String kind, String hash) {
+        return root.resolve(kind).resolve(hash.substring(0, 2)).resolve(hash + ".gz");
+    }
+}
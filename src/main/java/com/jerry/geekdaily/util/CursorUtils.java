@@ -0,0 +1,67 @@
+package com.jerry.geekdaily.util;
+
+import com.jerry.geekdaily.exception.ParamJsonException;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * keyset分页游标的编解码
+ * 游标内容为 (date, id)，对客户端不透明，只需原样带回
+ */
+public class CursorUtils {
+
+    private static final String SEPARATOR = "_";
+
+    //单页最多返回的条数
+    public static final int MAX_PAGE_SIZE = 50;
+
+    //将每页条数限制在 [1, MAX_PAGE_SIZE] 之间
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    //根据当前页最后一条数据的 (date, id) 生成游标
+    public static String encode(Date date, int id) {
+        String raw = date.getTime() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //解析游标  为空返回null（代表从第一页开始）  格式错误抛出参数异常
+    public static Cursor decode(String cursor) {
+        if (StringUtils.isEmpty(cursor)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.indexOf(SEPARATOR);
+            long time = Long.parseLong(raw.substring(0, index));
+            int id = Integer.parseInt(raw.substring(index + 1));
+            return new Cursor(new Date(time), id);
+        } catch (RuntimeException e) {
+            throw new ParamJsonException("游标格式错误");
+        }
+    }
+
+    public static class Cursor {
+
+        private final Date date;
+
+        private final int id;
+
+        public Cursor(Date date, int id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        public Date getDate() {
+            return date;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.jerry.geekdaily.util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 条件请求（ETag / If-None-Match）
+ * 只对GET/HEAD做304判断；POST请求也带上ETag响应头，客户端之后可以改用GET并携带If-None-Match
+ */
+public class ETagUtils {
+
+    //文章正文的ETag  正文只在修改文章时变化（浏览、点赞都会更新updateDate，所以不用updateDate）
+    public static String articleETag(int articleId, int contentVersion) {
+        return "\"a" + articleId + "-" + contentVersion + "\"";
+    }
+
+    //渲染后正文的ETag  渲染器版本变化后也需要重新获取
+    public static String articleHtmlETag(int articleId, int contentVersion, int renderVersion) {
+        return "\"h" + articleId + "-" + contentVersion + "-" + renderVersion + "\"";
+    }
+
+    //按内容寻址的正文  直接用内容的md5
+    public static String contentETag(String hash) {
+        return "\"" + hash + "\"";
+    }
+
+    //列表的ETag  列表所属的全站/分类有文章写入后feedVersion会变化
+    public static String feedETag(long feedVersion) {
+        return "\"f" + feedVersion + "\"";
+    }
+
+    //304响应  controller不返回null，避免切面和异常处理再写入响应体
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    /**
+     * 返回true时响应已被设置为304，controller返回notModified(etag)即可
+     */
+    public static boolean checkNotModified(ServletWebRequest request, String etag) {
+        HttpServletResponse response = request.getResponse();
+        HttpMethod method = request.getHttpMethod();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+            //POST带If-None-Match时spring会返回412  这里只回写ETag
+            if (response != null) {
+                response.setHeader(HttpHeaders.ETAG, etag);
+            }
+            return false;
+        }
+        if (response != null) {
+            //每次都回源校验  未变化时只返回304
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        return request.checkNotModified(etag);
+    }
+}
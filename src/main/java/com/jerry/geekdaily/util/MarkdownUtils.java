@@ -1,15 +1,30 @@
 package com.jerry.geekdaily.util;
 
+import org.pegdown.Extensions;
+import org.pegdown.FastEncoder;
+import org.pegdown.LinkRenderer;
+import org.pegdown.PegDownProcessor;
+import org.pegdown.ast.ExpImageNode;
+import org.pegdown.ast.ExpLinkNode;
+import org.pegdown.ast.RefImageNode;
+import org.pegdown.ast.RefLinkNode;
+
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.Locale;
 
 public class MarkdownUtils {
     private final static String BASE_URL = "https://raw.githubusercontent.com/";
     private final static String SUFFIX = "/master/README.md";
     private final static String GITHUB_URL = "https://github.com/";
 
+    //渲染选项  SUPPRESS_ALL_HTML去掉md中内嵌的所有html，防止脚本注入
+    private final static int RENDER_EXTENSIONS = Extensions.FENCED_CODE_BLOCKS | Extensions.TABLES | Extensions.AUTOLINKS
+            | Extensions.STRIKETHROUGH | Extensions.SUPPRESS_ALL_HTML;
+    private final static long MAX_PARSING_MILLIS = 5000;
+
     //根据github地址获取对应的仓库名  如通过"https://github.com/Alex-Jerry/Android-BLE"  获取：Alex-Jerry/Android-BLE"
     public static String getRepositoryName(String link){
         String repositoryName = "";
@@ -58,4 +73,64 @@ public class MarkdownUtils {
         }
         return  md_content;
     }
+
+    /**
+     * md转成安全的html  PegDownProcessor不是线程安全的，每次新建
+     */
+    public static String toSafeHtml(String mdContent) {
+        PegDownProcessor processor = new PegDownProcessor(RENDER_EXTENSIONS, MAX_PARSING_MILLIS);
+        String html = processor.markdownToHtml(mdContent, new SafeLinkRenderer());
+        if (html == null) {//解析超时
+            throw new IllegalStateException("md解析超时");
+        }
+        return html;
+    }
+
+    //只允许http、https、mailto和相对地址  其他协议（javascript:等）替换为#  返回值已做html转义
+    private static String safeUrl(String url) {
+        if (url == null) {
+            return "#";
+        }
+        String lower = url.trim().toLowerCase(Locale.ROOT);
+        int colon = lower.indexOf(':');
+        if (colon < 0 || lower.startsWith("http://") || lower.startsWith("https://") || lower.startsWith("mailto:")) {
+            return FastEncoder.encode(url.trim());
+        }
+        //冒号出现在/、?、#之后的是相对地址
+        int delimiter = lower.length();
+        for (char c : new char[]{'/', '?', '#'}) {
+            int i = lower.indexOf(c);
+            if (i >= 0 && i < delimiter) {
+                delimiter = i;
+            }
+        }
+        return colon > delimiter ? FastEncoder.encode(url.trim()) : "#";
+    }
+
+    private static class SafeLinkRenderer extends LinkRenderer {
+
+        @Override
+        public Rendering render(ExpLinkNode node, String text) {
+            return withTitle(new Rendering(safeUrl(node.url), text), node.title).withAttribute("rel", "nofollow");
+        }
+
+        @Override
+        public Rendering render(ExpImageNode node, String text) {
+            return withTitle(new Rendering(safeUrl(node.url), text), node.title);
+        }
+
+        @Override
+        public Rendering render(RefLinkNode node, String url, String title, String text) {
+            return withTitle(new Rendering(safeUrl(url), text), title).withAttribute("rel", "nofollow");
+        }
+
+        @Override
+        public Rendering render(RefImageNode node, String url, String title, String alt) {
+            return withTitle(new Rendering(safeUrl(url), alt), title);
+        }
+
+        private static Rendering withTitle(Rendering rendering, String title) {
+            return title == null || title.isEmpty() ? rendering : rendering.withAttribute("title", FastEncoder.encode(title));
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.jerry.geekdaily;
+
+import org.junit.Assume;
+
+/**
+ * 简单的耗时对比  只在 mvn test -Dbenchmark=true 时执行，平时跳过
+ * 先预热再计时，结果只打印不做断言（不同机器差异很大）
+ */
+public class Benchmarks {
+
+    private static final int WARMUP_ROUNDS = 2;
+
+    public static void assumeEnabled() {
+        Assume.assumeTrue("加 -Dbenchmark=true 执行", Boolean.getBoolean("benchmark"));
+    }
+
+    //返回每次执行的平均纳秒数
+    public static long run(String name, int iterations, Runnable task) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < iterations; i++) {
+                task.run();
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        long perOp = (System.nanoTime() - start) / iterations;
+        System.out.printf("%-40s %,12d ns/op%n", name, perOp);
+        return perOp;
+    }
+}
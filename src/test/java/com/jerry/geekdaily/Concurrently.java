@@ -0,0 +1,45 @@
+package com.jerry.geekdaily;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并发测试用的执行器  所有任务准备好后同时开始，按提交顺序返回每个任务的结果
+ * 任务抛出的异常会在get时原样抛出，测试直接失败
+ */
+public class Concurrently {
+
+    private static final long TIMEOUT_SECONDS = 120;
+
+    public interface Task<T> {
+        T run(int index) throws Exception;
+    }
+
+    public static <T> List<T> run(int threads, int tasks, Task<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.run(index);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>(tasks);
+            for (Future<T> future : futures) {
+                results.add(future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.jerry.geekdaily.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.jerry.geekdaily.Benchmarks;
+import com.jerry.geekdaily.base.ResultUtils;
+import com.jerry.geekdaily.config.FastJsonConfiguration;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import com.jerry.geekdaily.util.GzipUtils;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class FeedResponseCacheTest {
+
+    private final FeedResponseCache cache = new FeedResponseCache();
+
+    private final List<ArticleSummaryDTO> articles = articles(20);
+
+    @Test
+    public void serializesOncePerVersion() {
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<Object> body = () -> {
+            calls.incrementAndGet();
+            return ResultUtils.ok(articles);
+        };
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        cache.response("list:0:20:false", 1, body, request);
+        cache.response("list:0:20:false", 1, body, request);
+        assertEquals(1, calls.get());
+        //版本号变化后旧缓存不再命中
+        cache.response("list:0:20:false", 2, body, request);
+        assertEquals(2, calls.get());
+        cache.response("list:0:20:false", 2, body, request);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void returnsSameBytesAsConverter() {
+        Object result = ResultUtils.ok(articles);
+        byte[] expected = JSON.toJSONBytes(result, FastJsonConfiguration.SERIALIZER_FEATURES);
+        ResponseEntity<byte[]> plain = cache.response("k", 1, () -> result, new MockHttpServletRequest());
+        assertArrayEquals(expected, plain.getBody());
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        MockHttpServletRequest gzipRequest = new MockHttpServletRequest();
+        gzipRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        ResponseEntity<byte[]> gzip = cache.response("k", 1, () -> result, gzipRequest);
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(new String(expected, StandardCharsets.UTF_8), GzipUtils.decompressToString(gzip.getBody()));
+    }
+
+    @Test
+    public void benchmarkCachedBytesVsSerialization() {
+        Benchmarks.assumeEnabled();
+        Object result = ResultUtils.ok(articles);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        Benchmarks.run("每次序列化+gzip", 20_000,
+                () -> GzipUtils.compress(JSON.toJSONBytes(result, FastJsonConfiguration.SERIALIZER_FEATURES)));
+        Benchmarks.run("FeedResponseCache命中", 20_000, () -> cache.response("k", 1, () -> result, request));
+    }
+
+    private static List<ArticleSummaryDTO> articles(int size) {
+        List<ArticleSummaryDTO> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ArticleSummaryDTO summary = new ArticleSummaryDTO();
+            summary.setArticleId(i + 1);
+            summary.setTitle("title-" + i);
+            summary.setDes("一段用于测试的文章简介，长度和线上数据差不多 " + i);
+            summary.setLink("https://github.com/example/repo-" + i);
+            summary.setCategory("Android");
+            summary.setDate(new Date(1500000000000L + i * 1000L));
+            list.add(summary);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,122 @@
+package com.jerry.geekdaily.cache;
+
+import com.jerry.geekdaily.Benchmarks;
+import com.jerry.geekdaily.Concurrently;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 浏览数累加测试  redis计数和热门排行用mock代替
+ */
+public class ViewCounterTest {
+
+    private static final int THREADS = 8;
+
+    private static final int VIEWS_PER_THREAD = 20000;
+
+    private static final int ARTICLES = 4;
+
+    private ViewCounter viewCounter;
+
+    private ArticleStatsCounter articleStatsCounter;
+
+    //mock收到的浏览数  articleId -> views
+    private final Map<Integer, AtomicLong> written = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() {
+        viewCounter = new ViewCounter();
+        articleStatsCounter = mock(ArticleStatsCounter.class);
+        when(articleStatsCounter.increment(anyInt(), eq(ArticleStatsCounter.VIEWS), anyLong())).thenAnswer(invocation -> {
+            int articleId = invocation.getArgument(0);
+            long views = invocation.getArgument(2);
+            return written.computeIfAbsent(articleId, id -> new AtomicLong()).addAndGet(views);
+        });
+        ReflectionTestUtils.setField(viewCounter, "articleStatsCounter", articleStatsCounter);
+        ReflectionTestUtils.setField(viewCounter, "hotArticleRanking", mock(HotArticleRanking.class));
+    }
+
+    @Test
+    public void concurrentViewsAreWrittenExactlyOnce() throws Exception {
+        AtomicInteger finished = new AtomicInteger();
+        //最后一个任务在累加的同时不停flush
+        Concurrently.run(THREADS + 1, THREADS + 1, t -> {
+            if (t == THREADS) {
+                while (finished.get() < THREADS) {
+                    viewCounter.flush();
+                    Thread.sleep(10);
+                }
+                return null;
+            }
+            for (int i = 0; i < VIEWS_PER_THREAD; i++) {
+                viewCounter.increment(i % ARTICLES);
+            }
+            finished.incrementAndGet();
+            return null;
+        });
+        viewCounter.flush();
+        viewCounter.flush();
+        long total = written.values().stream().mapToLong(AtomicLong::get).sum();
+        assertEquals((long) THREADS * VIEWS_PER_THREAD, total);
+        for (int articleId = 0; articleId < ARTICLES; articleId++) {
+            assertEquals((long) THREADS * VIEWS_PER_THREAD / ARTICLES, written.get(articleId).get());
+        }
+    }
+
+    @Test
+    public void flushedArticlesAreDropped() {
+        for (int articleId = 0; articleId < 1000; articleId++) {
+            viewCounter.increment(articleId);
+        }
+        viewCounter.flush();
+        assertTrue(pending().isEmpty());
+        viewCounter.flush();
+        assertTrue(pending().isEmpty());
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(viewCounter, "retired")).isEmpty());
+        assertEquals(1000, written.size());
+    }
+
+    @Test
+    public void failedWriteIsRetried() {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        when(articleStatsCounter.increment(anyInt(), eq(ArticleStatsCounter.VIEWS), anyLong())).thenAnswer(invocation -> {
+            if (fail.getAndSet(false)) {
+                throw new IllegalStateException("redis down");
+            }
+            long views = invocation.getArgument(2);
+            return written.computeIfAbsent(invocation.getArgument(0), id -> new AtomicLong()).addAndGet(views);
+        });
+        viewCounter.increment(1);
+        viewCounter.increment(1);
+        viewCounter.flush();
+        assertNull(written.get(1));
+        assertEquals(1, pending().size());
+        viewCounter.flush();
+        assertEquals(2, written.get(1).get());
+    }
+
+    @Test
+    public void benchmarkIncrement() {
+        Benchmarks.assumeEnabled();
+        Map<Integer, AtomicLong> counters = new ConcurrentHashMap<>();
+        Benchmarks.run("ConcurrentHashMap<AtomicLong> increment", 1_000_000,
+                () -> counters.computeIfAbsent(1, id -> new AtomicLong()).incrementAndGet());
+        Benchmarks.run("ViewCounter.increment", 1_000_000, () -> viewCounter.increment(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, ?> pending() {
+        return (Map<Integer, ?>) ReflectionTestUtils.getField(viewCounter, "pending");
+    }
+}
@@ -0,0 +1,67 @@
+package com.jerry.geekdaily.repository;
+
+import com.alibaba.fastjson.JSON;
+import com.jerry.geekdaily.Benchmarks;
+import com.jerry.geekdaily.domain.Article;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 文章列表的精简投影  和实体查询逐条对比，并检查序列化结果中不含用户的敏感字段  只读
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ArticleSummaryProjectionTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20, new Sort(Sort.Direction.DESC, "date", "articleId"));
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Test
+    public void summaryMatchesEntityColumns() {
+        List<Article> articles = articleRepository.findAll(FIRST_PAGE).getContent();
+        List<ArticleSummaryDTO> summaries = articleRepository.findAllArticleSummaries(FIRST_PAGE).getContent();
+        assertEquals(articles.size(), summaries.size());
+        for (int i = 0; i < articles.size(); i++) {
+            Article article = articles.get(i);
+            ArticleSummaryDTO summary = summaries.get(i);
+            assertEquals(article.getArticleId(), summary.getArticleId());
+            assertEquals(article.getTitle(), summary.getTitle());
+            assertEquals(article.getCategoryId(), summary.getCategoryId());
+            assertEquals(article.getReviewStatus(), summary.getReviewStatus());
+            if (article.getUser() != null && summary.getUser() != null) {
+                assertEquals(article.getUser().getUserId(), summary.getUser().getUserId());
+            }
+        }
+    }
+
+    @Test
+    public void summaryJsonHasNoUserSecrets() {
+        String json = JSON.toJSONString(articleRepository.findAllArticleSummaries(FIRST_PAGE).getContent());
+        assertFalse(json.contains("openId"));
+        assertFalse(json.contains("sessionKey"));
+    }
+
+    @Test
+    public void benchmarkSummaryVsEntityPage() {
+        Benchmarks.assumeEnabled();
+        Benchmarks.run("entity page (eager user)", 200, () -> articleRepository.findAll(FIRST_PAGE));
+        Benchmarks.run("summary projection page", 200, () -> articleRepository.findAllArticleSummaries(FIRST_PAGE));
+        int entityBytes = JSON.toJSONString(articleRepository.findAll(FIRST_PAGE).getContent()).getBytes(StandardCharsets.UTF_8).length;
+        int summaryBytes = JSON.toJSONString(articleRepository.findAllArticleSummaries(FIRST_PAGE).getContent()).getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("json bytes  entity %,d  summary %,d%n", entityBytes, summaryBytes);
+    }
+}
@@ -0,0 +1,129 @@
+package com.jerry.geekdaily.repository;
+
+import com.jerry.geekdaily.Benchmarks;
+import com.jerry.geekdaily.Concurrently;
+import com.jerry.geekdaily.cache.StarBitmapCache;
+import com.jerry.geekdaily.domain.Stars;
+import com.jerry.geekdaily.domain.User;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import com.jerry.geekdaily.dto.UserBriefDTO;
+import com.jerry.geekdaily.enums.StarStatusEnum;
+import com.jerry.geekdaily.enums.StarTypeEnum;
+import com.jerry.geekdaily.service.StarsService;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 我的点赞、文章点赞用户的关联查询  结果按点赞时间倒序，并和原来两次查询的方式对比耗时
+ * 新建一个测试用户给已有文章点赞，结束后删除点赞记录和该用户；点赞位图用mock代替，不通知其他实例
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StarredJoinQueryTest {
+
+    private static final int STARRED = 20;
+
+    private static final int THREADS = 16;
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private StarsService starsService;
+
+    @Autowired
+    private StarsRepository starsRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private StarBitmapCache starBitmapCache;
+
+    //点赞顺序  最后点赞的应排在最前
+    private final List<Integer> starOrder = new ArrayList<>();
+
+    private User user;
+
+    @Before
+    public void starArticles() {
+        List<ArticleSummaryDTO> articles = articleRepository.findAllArticleSummaries(PageRequest.of(0, STARRED)).getContent();
+        Assume.assumeFalse("数据库中没有文章", articles.isEmpty());
+        user = new User();
+        user.setUserName("starred-join-test-" + UUID.randomUUID());
+        user.setDate(new Date());
+        user = userRepository.save(user);
+        for (ArticleSummaryDTO article : articles) {
+            starsService.toggleStar(user.getUserId(), article.getArticleId(), StarTypeEnum.ARTICLE_STAR.getStarType(),
+                    StarStatusEnum.STAR_STATUS.getStarStatus());
+            starOrder.add(0, article.getArticleId());
+        }
+    }
+
+    @After
+    public void cleanUp() {
+        if (user == null) {
+            return;
+        }
+        starsRepository.deleteAll(starsRepository.findAllByUserId(user.getUserId()));
+        userRepository.delete(user);
+    }
+
+    @Test
+    public void starredArticlesFollowStarOrder() {
+        List<Integer> ids = articleRepository.findStarredByUserId(user.getUserId(), PageRequest.of(0, STARRED)).getContent()
+                .stream().map(ArticleSummaryDTO::getArticleId).collect(Collectors.toList());
+        assertFalse(starOrder.isEmpty());
+        assertEquals(starOrder, ids);
+    }
+
+    @Test
+    public void latestStarerComesFirst() {
+        List<UserBriefDTO> starers = userRepository.findStarersByArticleId(starOrder.get(0), PageRequest.of(0, 10)).getContent();
+        assertFalse(starers.isEmpty());
+        assertEquals(user.getUserId(), starers.get(0).getUserId());
+        assertEquals(user.getUserName(), starers.get(0).getUserName());
+    }
+
+    @Test
+    public void loadJoinVsTwoRoundTrips() throws Exception {
+        Benchmarks.assumeEnabled();
+        Benchmarks.run("starred join (1 query)", 200, () -> articleRepository.findStarredByUserId(user.getUserId(), FIRST_PAGE));
+        Benchmarks.run("starred stars + IN (2 queries)", 200, () -> {
+            List<Integer> ids = starsRepository.findStarsByUserId(user.getUserId(), FIRST_PAGE).getContent()
+                    .stream().map(Stars::getArticleId).collect(Collectors.toList());
+            if (!ids.isEmpty()) {
+                articleRepository.findArticlesByArticleIdIn(ids);
+            }
+        });
+        //并发压测  所有线程同时执行关联查询
+        long start = System.nanoTime();
+        Concurrently.run(THREADS, THREADS, i -> {
+            for (int round = 0; round < 100; round++) {
+                articleRepository.findStarredByUserId(user.getUserId(), FIRST_PAGE);
+                userRepository.findStarersByArticleId(starOrder.get(0), FIRST_PAGE);
+            }
+            return null;
+        });
+        System.out.printf("%-40s %,12d ms%n", THREADS + " threads x 100 rounds", (System.nanoTime() - start) / 1_000_000);
+    }
+}
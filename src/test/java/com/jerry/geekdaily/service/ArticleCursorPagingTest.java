@@ -0,0 +1,78 @@
+package com.jerry.geekdaily.service;
+
+import com.jerry.geekdaily.Benchmarks;
+import com.jerry.geekdaily.base.CursorPage;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import com.jerry.geekdaily.util.CursorUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 已审核文章的游标分页  页大小的限制、相邻两页不重叠，以及和offset分页的耗时对比  只读
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ArticleCursorPagingTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    //对比的页码  offset分页越往后越慢
+    private static final int DEEP_PAGE = 200;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Test
+    public void invalidSizeIsClamped() {
+        CursorPage<ArticleSummaryDTO> empty = articleService.findReviewedArticlesByCursor(null, 0);
+        assertTrue(empty.getList().size() <= 1);
+        CursorPage<ArticleSummaryDTO> negative = articleService.findReviewedArticlesByCursor(null, -1);
+        assertTrue(negative.getList().size() <= 1);
+        CursorPage<ArticleSummaryDTO> huge = articleService.findReviewedArticlesByCursor(null, 100000);
+        assertTrue(huge.getList().size() <= CursorUtils.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    public void cursorPagesDoNotOverlap() {
+        CursorPage<ArticleSummaryDTO> first = articleService.findReviewedArticlesByCursor(null, PAGE_SIZE);
+        if (first.getNextCursor() == null) {
+            return;
+        }
+        CursorPage<ArticleSummaryDTO> second = articleService.findReviewedArticlesByCursor(first.getNextCursor(), PAGE_SIZE);
+        ArticleSummaryDTO last = first.getList().get(first.getList().size() - 1);
+        for (ArticleSummaryDTO article : second.getList()) {
+            assertNotEquals(last.getArticleId(), article.getArticleId());
+            assertFalse(article.getDate().after(last.getDate()));
+        }
+    }
+
+    @Test
+    public void benchmarkDeepPageKeysetVsOffset() {
+        Benchmarks.assumeEnabled();
+        //先用offset定位到深页的最后一条  作为keyset的起点
+        List<ArticleSummaryDTO> previous = articleRepository.findAllReviewedArticles(
+                PageRequest.of(DEEP_PAGE - 1, PAGE_SIZE, new Sort(Sort.Direction.DESC, "date", "articleId"))).getContent();
+        if (previous.isEmpty()) {
+            System.out.println("文章数量不足" + DEEP_PAGE * PAGE_SIZE + "篇，跳过对比");
+            return;
+        }
+        ArticleSummaryDTO last = previous.get(previous.size() - 1);
+        Benchmarks.run("offset page " + DEEP_PAGE, 50, () -> articleRepository.findAllReviewedArticles(
+                PageRequest.of(DEEP_PAGE, PAGE_SIZE, new Sort(Sort.Direction.DESC, "date", "articleId"))));
+        Benchmarks.run("keyset page " + DEEP_PAGE, 50, () -> articleRepository.findReviewedArticlesAfter(
+                last.getDate(), last.getArticleId(), PageRequest.of(0, PAGE_SIZE + 1)));
+    }
+}
@@ -0,0 +1,144 @@
+package com.jerry.geekdaily.service;
+
+import com.jerry.geekdaily.cache.ArticleCounter;
+import com.jerry.geekdaily.cache.ArticleFeedStore;
+import com.jerry.geekdaily.cache.CategoryFeedCache;
+import com.jerry.geekdaily.cache.FeedVersionCounter;
+import com.jerry.geekdaily.cache.HotArticleRanking;
+import com.jerry.geekdaily.domain.Article;
+import com.jerry.geekdaily.domain.User;
+import com.jerry.geekdaily.dto.UpdateArticleDTO;
+import com.jerry.geekdaily.enums.AdminEnum;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import com.jerry.geekdaily.service.impl.ArticleServiceImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 修改文章时审核状态、计数和热门排行的变化  不连接数据库，依赖全部mock
+ */
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class ArticleServiceImplTest {
+
+    private static final int ARTICLE_ID = 100;
+
+    private static final int OWNER_ID = 7;
+
+    private static final int ADMIN_ID = 8;
+
+    private static final int CATEGORY_ID = 3;
+
+    private static final int OTHER_CATEGORY_ID = 4;
+
+    @InjectMocks
+    private ArticleServiceImpl articleService;
+
+    @Spy
+    private ArticleCounter articleCounter = new ArticleCounter();
+
+    @Mock
+    private ArticleRepository articleRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private ArticleFeedStore articleFeedStore;
+
+    @Mock
+    private CategoryFeedCache categoryFeedCache;
+
+    @Mock
+    private FeedVersionCounter feedVersionCounter;
+
+    @Mock
+    private HotArticleRanking hotArticleRanking;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(articleCounter, "stringRedisTemplate", stringRedisTemplate);
+        when(userService.findUserByUserId(OWNER_ID)).thenReturn(user(OWNER_ID, AdminEnum.NOT_ADMIN));
+        when(userService.findUserByUserId(ADMIN_ID)).thenReturn(user(ADMIN_ID, AdminEnum.ADMIN));
+        when(categoryService.resolveCategoryId("Android")).thenReturn(CATEGORY_ID);
+    }
+
+    @Test
+    public void ownerEditMovesReviewedArticleBackToPending() {
+        Article article = article(1);
+        articleCounter.move(null, 0, 1, CATEGORY_ID);
+        articleService.updateArticle(update(OWNER_ID));
+        assertEquals(0, article.getReviewStatus());
+        assertEquals(0, articleCounter.countByStatus(1));
+        assertEquals(1, articleCounter.countByStatus(0));
+        assertEquals(0, articleCounter.countByCategory(CATEGORY_ID));
+        verify(hotArticleRanking).remove(ARTICLE_ID, CATEGORY_ID);
+    }
+
+    @Test
+    public void adminEditApprovesPendingArticle() {
+        Article article = article(0);
+        articleCounter.move(null, 0, 0, CATEGORY_ID);
+        articleService.updateArticle(update(ADMIN_ID));
+        assertEquals(1, article.getReviewStatus());
+        assertEquals(1, articleCounter.countByStatus(1));
+        assertEquals(0, articleCounter.countByStatus(0));
+        assertEquals(1, articleCounter.countByCategory(CATEGORY_ID));
+        verify(hotArticleRanking).recordPublish(ARTICLE_ID);
+    }
+
+    @Test
+    public void adminCategoryChangeMovesHotScore() {
+        article(1);
+        when(categoryService.resolveCategoryId("iOS")).thenReturn(OTHER_CATEGORY_ID);
+        UpdateArticleDTO dto = update(ADMIN_ID);
+        dto.setCategory("iOS");
+        articleService.updateArticle(dto);
+        verify(hotArticleRanking).moveCategory(ARTICLE_ID, CATEGORY_ID, OTHER_CATEGORY_ID);
+        verify(hotArticleRanking, never()).remove(anyInt(), anyInt());
+        verify(hotArticleRanking, never()).recordPublish(anyInt());
+    }
+
+    private Article article(int reviewStatus) {
+        Article article = new Article();
+        article.setArticleId(ARTICLE_ID);
+        article.setContributorId(OWNER_ID);
+        article.setCategory("Android");
+        article.setCategoryId(CATEGORY_ID);
+        article.setReviewStatus(reviewStatus);
+        when(articleRepository.findArticleByArticleId(ARTICLE_ID)).thenReturn(article);
+        return article;
+    }
+
+    private static UpdateArticleDTO update(int userId) {
+        UpdateArticleDTO dto = new UpdateArticleDTO();
+        dto.setArticleId(ARTICLE_ID);
+        dto.setContributorId(userId);
+        dto.setTitle("title");
+        dto.setCategory("Android");
+        return dto;
+    }
+
+    private static User user(int userId, AdminEnum admin) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setAdminStatus(admin.getAdmin_status());
+        return user;
+    }
+}
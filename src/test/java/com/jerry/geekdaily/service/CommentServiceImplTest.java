@@ -0,0 +1,126 @@
+package com.jerry.geekdaily.service;
+
+import com.jerry.geekdaily.Benchmarks;
+import com.jerry.geekdaily.Concurrently;
+import com.jerry.geekdaily.cache.ArticleStatsCounter;
+import com.jerry.geekdaily.cache.CommentFeedCache;
+import com.jerry.geekdaily.cache.HotArticleRanking;
+import com.jerry.geekdaily.domain.Article;
+import com.jerry.geekdaily.domain.Comment;
+import com.jerry.geekdaily.dto.ArticleSummaryDTO;
+import com.jerry.geekdaily.dto.CommentDTO;
+import com.jerry.geekdaily.repository.ArticleRepository;
+import com.jerry.geekdaily.repository.CommentRepository;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 并发发表评论  评论数只通过redis增量累加，不再整行保存文章
+ * 以文章作者的身份评论第一篇已有文章，结束后删除评论并还原redis中的评论数
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CommentServiceImplTest {
+
+    private static final int THREADS = 16;
+
+    private static final int COMMENTS_PER_THREAD = 5;
+
+    private static final String CONTENT_PREFIX = "comment-service-test-";
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ArticleStatsCounter articleStatsCounter;
+
+    //排行、评论列表缓存和积分不在测试范围内  用mock代替，避免修改共享的redis和通知其他实例
+    @MockBean
+    private HotArticleRanking hotArticleRanking;
+
+    @MockBean
+    private CommentFeedCache commentFeedCache;
+
+    @MockBean
+    private PointsService pointsService;
+
+    private Article article;
+
+    private final AtomicInteger posted = new AtomicInteger();
+
+    @Before
+    public void findArticle() {
+        List<ArticleSummaryDTO> articles = articleRepository.findAllArticleSummaries(PageRequest.of(0, 1)).getContent();
+        Assume.assumeFalse("数据库中没有文章", articles.isEmpty());
+        article = articleRepository.findArticleByArticleId(articles.get(0).getArticleId());
+    }
+
+    @After
+    public void cleanUp() {
+        if (article == null) {
+            return;
+        }
+        List<Comment> comments = commentRepository.findLatestByArticleId(article.getArticleId(), PageRequest.of(0, posted.get() + THREADS))
+                .stream().filter(comment -> comment.getContent().startsWith(CONTENT_PREFIX)).collect(Collectors.toList());
+        commentRepository.deleteAll(comments);
+        articleStatsCounter.increment(article.getArticleId(), ArticleStatsCounter.COMMENTS, -posted.get());
+    }
+
+    @Test
+    public void concurrentCommentsKeepCountAndDoNotResaveArticle() throws Exception {
+        long before = articleStatsCounter.find(article.getArticleId()).getComments();
+        postConcurrently(COMMENTS_PER_THREAD);
+        assertEquals(THREADS * COMMENTS_PER_THREAD, posted.get());
+        assertEquals(before + posted.get(), articleStatsCounter.find(article.getArticleId()).getComments());
+        verify(hotArticleRanking, times(posted.get())).recordComment(article.getArticleId());
+        //发表评论不再保存整个文章  更新时间不变
+        Article after = articleRepository.findArticleByArticleId(article.getArticleId());
+        assertEquals(article.getUpdateDate(), after.getUpdateDate());
+    }
+
+    @Test
+    public void benchmarkConcurrentCommentPosts() throws Exception {
+        Benchmarks.assumeEnabled();
+        long start = System.nanoTime();
+        postConcurrently(50);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%-40s %,12d ms  %,d comments/s%n", THREADS + " threads x 50 comments", millis,
+                posted.get() * 1000L / Math.max(millis, 1));
+    }
+
+    private void postConcurrently(int perThread) throws Exception {
+        Concurrently.run(THREADS, THREADS, t -> {
+            for (int i = 0; i < perThread; i++) {
+                CommentDTO comment = new CommentDTO();
+                comment.setArticleId(article.getArticleId());
+                comment.setArticleType(0);
+                comment.setFromUid(article.getContributorId());
+                comment.setContent(CONTENT_PREFIX + posted.get());
+                commentService.commentArticle(comment);
+                posted.incrementAndGet();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.jerry.geekdaily.service;
+
+import com.jerry.geekdaily.Concurrently;
+import com.jerry.geekdaily.cache.StarBitmapCache;
+import com.jerry.geekdaily.domain.Stars;
+import com.jerry.geekdaily.enums.StarStatusEnum;
+import com.jerry.geekdaily.enums.StarTypeEnum;
+import com.jerry.geekdaily.repository.StarsRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * toggleStar的并发测试  并发的点赞、取消点赞最终只对应stars表中的一条记录
+ * 使用不存在的文章id，结束后删除该文章的点赞记录；点赞位图用mock代替，不修改真实用户的位图、不通知其他实例
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StarsServiceImplTest {
+
+    private static final int THREADS = 16;
+
+    private static final int ARTICLE_ID = Integer.MAX_VALUE - 1;
+
+    private static final int STAR = StarStatusEnum.STAR_STATUS.getStarStatus();
+
+    private static final int IDLE = StarStatusEnum.IDLE_STAR_STATUS.getStarStatus();
+
+    private static final int TYPE = StarTypeEnum.ARTICLE_STAR.getStarType();
+
+    @Autowired
+    private StarsService starsService;
+
+    @Autowired
+    private StarsRepository starsRepository;
+
+    @MockBean
+    private StarBitmapCache starBitmapCache;
+
+    @After
+    public void cleanUp() {
+        starsRepository.deleteByArticleId(ARTICLE_ID);
+    }
+
+    @Test
+    public void concurrentStarsBySameUserCountOnce() throws Exception {
+        List<Integer> deltas = Concurrently.run(THREADS, THREADS, i -> starsService.toggleStar(1, ARTICLE_ID, TYPE, STAR));
+        assertEquals(1, deltas.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(1, starsRepository.findStarsByArticleId(ARTICLE_ID, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    public void concurrentStarToggleNetDeltaMatchesFinalState() throws Exception {
+        List<Integer> deltas = Concurrently.run(THREADS, THREADS * 4, i -> starsService.toggleStar(1, ARTICLE_ID, TYPE, i % 2 == 0 ? STAR : IDLE));
+        int net = deltas.stream().mapToInt(Integer::intValue).sum();
+        Stars stars = starsRepository.findByUserIdAndArticleId(1, ARTICLE_ID);
+        int expected = stars != null && stars.getStatus() == STAR ? 1 : 0;
+        assertEquals(expected, net);
+    }
+
+    @Test
+    public void concurrentStarsByDifferentUsersAreAllKept() throws Exception {
+        //id没有自增时insert ignore会把除第一条以外的记录全部忽略
+        List<Integer> deltas = Concurrently.run(THREADS, THREADS * 4, i -> starsService.toggleStar(i + 1, ARTICLE_ID, TYPE, STAR));
+        assertEquals(THREADS * 4, deltas.stream().mapToInt(Integer::intValue).sum());
+        List<Stars> rows = starsRepository.findStarsByArticleId(ARTICLE_ID, PageRequest.of(0, THREADS * 8)).getContent();
+        assertEquals(THREADS * 4, rows.size());
+        Set<Integer> ids = new HashSet<>();
+        rows.forEach(row -> ids.add(row.getId()));
+        assertEquals(THREADS * 4, ids.size());
+        assertFalse(ids.contains(0));
+    }
+}
@@ -0,0 +1,27 @@
+package com.jerry.geekdaily.util;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class CursorUtilsTest {
+
+    @Test
+    public void clampSizeKeepsSizeWithinBounds() {
+        assertEquals(1, CursorUtils.clampSize(0));
+        assertEquals(1, CursorUtils.clampSize(-5));
+        assertEquals(10, CursorUtils.clampSize(10));
+        assertEquals(CursorUtils.MAX_PAGE_SIZE, CursorUtils.clampSize(100000));
+    }
+
+    @Test
+    public void decodeReturnsEncodedPosition() {
+        Date date = new Date();
+        CursorUtils.Cursor cursor = CursorUtils.decode(CursorUtils.encode(date, 42));
+        assertEquals(date, cursor.getDate());
+        assertEquals(42, cursor.getId());
+        assertNull(CursorUtils.decode(""));
+    }
+}